@@ -0,0 +1,53 @@
+package io.lacuna.artifex.benchmarks;
+
+import io.lacuna.artifex.Matrix3;
+import io.lacuna.artifex.Region2;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the boolean operations on two copies of the same shape, the second offset so that their boundaries cross
+ * many times.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ClipBenchmark {
+
+  @Param({"CIRCLE", "POLYGON", "GLYPH"})
+  public Shapes.Kind kind;
+
+  @Param({"8", "64"})
+  public int complexity;
+
+  @Param({"42"})
+  public long seed;
+
+  private Region2 a, b;
+
+  @Setup
+  public void setup() {
+    a = Shapes.shape(kind, complexity, seed);
+    b = Shapes.shape(kind, complexity, seed + 1)
+      .transform(Matrix3.translate(0.3, 0.2).mul(Matrix3.rotate(0.1)));
+  }
+
+  @Benchmark
+  public Region2 union() {
+    return a.union(b);
+  }
+
+  @Benchmark
+  public Region2 intersection() {
+    return a.intersection(b);
+  }
+
+  @Benchmark
+  public Region2 difference() {
+    return a.difference(b);
+  }
+}
@@ -0,0 +1,87 @@
+package io.lacuna.artifex.benchmarks;
+
+import io.lacuna.artifex.Curve2;
+import io.lacuna.artifex.Vec2;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the per-curve operations on quadratic and cubic Bezier curves, cycling through a fixed pool of random curves
+ * so that the results aren't dominated by a single, possibly degenerate, shape.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CurveBenchmark {
+
+  private static final int POOL_SIZE = 1024;
+  private static final int SAMPLES = 64;
+
+  @Param({"quadratic", "cubic"})
+  public String degree;
+
+  @Param({"42"})
+  public long seed;
+
+  private Curve2[] curves;
+  private Vec2[] points;
+  private int idx;
+
+  private final double[] ts = new double[SAMPLES], xs = new double[SAMPLES], ys = new double[SAMPLES];
+
+  @Setup
+  public void setup() {
+    Random rand = new Random(seed);
+    curves = new Curve2[POOL_SIZE];
+    for (int i = 0; i < POOL_SIZE; i++) {
+      curves[i] = degree.equals("cubic") ? Shapes.cubic(rand) : Shapes.quadratic(rand);
+    }
+    points = Shapes.points(POOL_SIZE, 0.5, seed);
+    for (int i = 0; i < SAMPLES; i++) {
+      ts[i] = (double) i / (SAMPLES - 1);
+    }
+  }
+
+  private int next() {
+    idx = (idx + 1) & (POOL_SIZE - 1);
+    return idx;
+  }
+
+  @Benchmark
+  public Vec2 position() {
+    return curves[next()].position(0.37);
+  }
+
+  @Benchmark
+  public double[] positions() {
+    curves[next()].positions(ts, xs, ys);
+    return xs;
+  }
+
+  @Benchmark
+  public double[] positionsIndividually() {
+    Curve2 c = curves[next()];
+    for (int i = 0; i < SAMPLES; i++) {
+      Vec2 v = c.position(ts[i]);
+      xs[i] = v.x;
+      ys[i] = v.y;
+    }
+    return xs;
+  }
+
+  @Benchmark
+  public Curve2[] split() {
+    return curves[next()].split(0.37);
+  }
+
+  @Benchmark
+  public double nearestPoint() {
+    int i = next();
+    return curves[i].nearestPoint(points[i]);
+  }
+}
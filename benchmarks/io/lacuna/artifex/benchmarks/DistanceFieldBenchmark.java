@@ -0,0 +1,44 @@
+package io.lacuna.artifex.benchmarks;
+
+import io.lacuna.artifex.DistanceField;
+import io.lacuna.artifex.Region2;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the generation of multi-channel distance fields, where {@code resolution} is the number of samples along
+ * each axis of the unit square.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DistanceFieldBenchmark {
+
+  @Param({"CIRCLE", "GLYPH"})
+  public Shapes.Kind kind;
+
+  @Param({"16"})
+  public int complexity;
+
+  @Param({"16", "64"})
+  public int resolution;
+
+  @Param({"42"})
+  public long seed;
+
+  private Region2 region;
+
+  @Setup
+  public void setup() {
+    region = Shapes.shape(kind, complexity, seed);
+  }
+
+  @Benchmark
+  public DistanceField from() {
+    return DistanceField.from(region, resolution / 2.0);
+  }
+}
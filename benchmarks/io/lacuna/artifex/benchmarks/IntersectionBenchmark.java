@@ -0,0 +1,60 @@
+package io.lacuna.artifex.benchmarks;
+
+import io.lacuna.artifex.Curve2;
+import io.lacuna.artifex.Vec2;
+import io.lacuna.artifex.utils.Intersections;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the fat-line and subdivision approaches to curve/curve intersection over the same pool of random curve pairs.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IntersectionBenchmark {
+
+  private static final int POOL_SIZE = 256;
+
+  @Param({"quadratic", "cubic"})
+  public String degree;
+
+  @Param({"42"})
+  public long seed;
+
+  private Curve2[] as, bs;
+  private int idx;
+
+  @Setup
+  public void setup() {
+    Random rand = new Random(seed);
+    as = new Curve2[POOL_SIZE];
+    bs = new Curve2[POOL_SIZE];
+    for (int i = 0; i < POOL_SIZE; i++) {
+      as[i] = degree.equals("cubic") ? Shapes.cubic(rand) : Shapes.quadratic(rand);
+      bs[i] = degree.equals("cubic") ? Shapes.cubic(rand) : Shapes.quadratic(rand);
+    }
+  }
+
+  private int next() {
+    idx = (idx + 1) & (POOL_SIZE - 1);
+    return idx;
+  }
+
+  @Benchmark
+  public Vec2[] fatLine() {
+    int i = next();
+    return Intersections.fatLineCurveCurve(as[i], bs[i]);
+  }
+
+  @Benchmark
+  public Vec2[] subdivision() {
+    int i = next();
+    return Intersections.subdivisionCurveCurve(as[i], bs[i]);
+  }
+}
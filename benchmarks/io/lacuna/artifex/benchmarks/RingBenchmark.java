@@ -0,0 +1,76 @@
+package io.lacuna.artifex.benchmarks;
+
+import io.lacuna.artifex.Region2;
+import io.lacuna.artifex.Ring2;
+import io.lacuna.artifex.Vec2;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures point-in-ring tests, both one point at a time and in bulk via {@link Region2#contains(double[], double[],
+ * boolean[])}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RingBenchmark {
+
+  private static final int POINTS = 1024;
+
+  @Param({"CIRCLE", "POLYGON", "GLYPH"})
+  public Shapes.Kind kind;
+
+  @Param({"8", "64", "512"})
+  public int complexity;
+
+  @Param({"42"})
+  public long seed;
+
+  private Region2 region;
+  private Ring2 ring;
+  private Vec2[] points;
+  private double[] xs, ys;
+  private boolean[] out;
+
+  @Setup
+  public void setup() {
+    region = Shapes.shape(kind, complexity, seed);
+    ring = region.rings[region.rings.length - 1];
+    points = Shapes.points(POINTS, 0.1, seed);
+
+    xs = new double[POINTS];
+    ys = new double[POINTS];
+    out = new boolean[POINTS];
+    for (int i = 0; i < POINTS; i++) {
+      xs[i] = points[i].x;
+      ys[i] = points[i].y;
+    }
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(POINTS)
+  public void ringTest(Blackhole bh) {
+    for (Vec2 p : points) {
+      bh.consume(ring.test(p));
+    }
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(POINTS)
+  public void regionContains(Blackhole bh) {
+    for (Vec2 p : points) {
+      bh.consume(region.contains(p));
+    }
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(POINTS)
+  public boolean[] regionContainsBulk() {
+    return region.contains(xs, ys, out);
+  }
+}
@@ -0,0 +1,151 @@
+package io.lacuna.artifex.benchmarks;
+
+import io.lacuna.artifex.*;
+import io.lacuna.bifurcan.IList;
+import io.lacuna.bifurcan.LinearList;
+
+import java.util.Random;
+
+import static io.lacuna.artifex.Vec.vec;
+
+/**
+ * Reproducible inputs for the benchmarks.  Every generator takes an explicit seed, so that the same parameters always
+ * yield the same geometry across runs and machines.
+ */
+public class Shapes {
+
+  public enum Kind {
+    CIRCLE,
+    POLYGON,
+    GLYPH
+  }
+
+  public static Region2 shape(Kind kind, int complexity, long seed) {
+    switch (kind) {
+      case CIRCLE:
+        return circle(complexity);
+      case POLYGON:
+        return polygon(complexity, seed);
+      case GLYPH:
+        return glyph(complexity, seed);
+      default:
+        throw new IllegalArgumentException(kind.toString());
+    }
+  }
+
+  /**
+   * @return a unit circle centered at the origin, approximated with {@code segments} cubic curves
+   */
+  public static Region2 circle(int segments) {
+    IList<Curve2> curves = new LinearList<>();
+    double step = Math.PI * 2 / segments;
+    double k = 4.0 / 3.0 * Math.tan(step / 4);
+    for (int i = 0; i < segments; i++) {
+      double t0 = i * step, t1 = (i + 1) * step;
+      Vec2 p0 = vec(Math.cos(t0), Math.sin(t0));
+      Vec2 p3 = i == segments - 1 ? vec(1, 0) : vec(Math.cos(t1), Math.sin(t1));
+      curves.addLast(Bezier2.curve(
+        p0,
+        p0.add(vec(-p0.y, p0.x).mul(k)),
+        p3.add(vec(p3.y, -p3.x).mul(k)),
+        p3));
+    }
+    return new Ring2(curves).region();
+  }
+
+  /**
+   * @return a star-shaped polygon with {@code vertices} vertices, whose radii vary randomly within [0.5, 1]
+   */
+  public static Region2 polygon(int vertices, long seed) {
+    return Ring2.of(polygonCurves(vertices, 0.5, 1, seed)).region();
+  }
+
+  /**
+   * @return an outline with {@code features} bumps along both an outer and inner ring, loosely resembling a glyph like
+   * 'O' or 'Q', with a mix of line and curve segments
+   */
+  public static Region2 glyph(int features, long seed) {
+    Random rand = new Random(seed);
+    Ring2 outer = bumpyRing(features, 1.0, 0.1, rand);
+    Ring2 inner = bumpyRing(features, 0.6, 0.05, rand).reverse();
+    return Region2.of(outer, inner);
+  }
+
+  /**
+   * @return {@code count} points within the unit square centered on the origin, padded by {@code padding}
+   */
+  public static Vec2[] points(int count, double padding, long seed) {
+    Random rand = new Random(seed);
+    Vec2[] result = new Vec2[count];
+    double size = 2 + padding * 2;
+    for (int i = 0; i < count; i++) {
+      result[i] = vec(rand.nextDouble() * size - size / 2, rand.nextDouble() * size - size / 2);
+    }
+    return result;
+  }
+
+  /**
+   * @return a random cubic curve whose control points lie within the unit square centered on the origin
+   */
+  public static Curve2 cubic(Random rand) {
+    return Bezier2.curve(point(rand), point(rand), point(rand), point(rand));
+  }
+
+  public static Curve2 quadratic(Random rand) {
+    return Bezier2.curve(point(rand), point(rand), point(rand));
+  }
+
+  ///
+
+  private static Vec2 point(Random rand) {
+    return vec(rand.nextDouble() * 2 - 1, rand.nextDouble() * 2 - 1);
+  }
+
+  private static Curve2[] polygonCurves(int vertices, double minRadius, double maxRadius, long seed) {
+    Random rand = new Random(seed);
+    Vec2[] vs = new Vec2[vertices];
+    for (int i = 0; i < vertices; i++) {
+      double theta = Math.PI * 2 * i / vertices;
+      double r = minRadius + rand.nextDouble() * (maxRadius - minRadius);
+      vs[i] = vec(Math.cos(theta) * r, Math.sin(theta) * r);
+    }
+
+    Curve2[] curves = new Curve2[vertices];
+    for (int i = 0; i < vertices; i++) {
+      curves[i] = Line2.line(vs[i], vs[(i + 1) % vertices]);
+    }
+    return curves;
+  }
+
+  private static Ring2 bumpyRing(int features, double radius, double amplitude, Random rand) {
+    IList<Curve2> curves = new LinearList<>();
+    double step = Math.PI * 2 / features;
+    Vec2 first = null, prev = null;
+    for (int i = 0; i < features; i++) {
+      double theta = i * step;
+      double r = radius + (rand.nextDouble() * 2 - 1) * amplitude;
+      Vec2 p = vec(Math.cos(theta) * r, Math.sin(theta) * r);
+      if (prev == null) {
+        first = p;
+      } else {
+        curves.addLast(segment(prev, p, i, amplitude));
+      }
+      prev = p;
+    }
+    curves.addLast(segment(prev, first, features, amplitude));
+    return new Ring2(curves);
+  }
+
+  private static Curve2 segment(Vec2 a, Vec2 b, int idx, double amplitude) {
+    if (idx % 3 == 0) {
+      return Line2.line(a, b);
+    }
+
+    // push the control points outwards, so the curve bulges like a serif or bowl
+    Vec2 mid = Vec.lerp(a, b, 0.5);
+    Vec2 bulge = mid.norm().mul(amplitude);
+    return idx % 3 == 1
+      ? Bezier2.curve(a, mid.add(bulge), b)
+      : Bezier2.curve(a, Vec.lerp(a, b, 0.25).add(bulge), Vec.lerp(a, b, 0.75).add(bulge), b);
+  }
+}
@@ -0,0 +1,61 @@
+package io.lacuna.artifex.benchmarks;
+
+import io.lacuna.artifex.Vec;
+import io.lacuna.artifex.Vec2;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+import static io.lacuna.artifex.Vec.vec;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class VectorBenchmark {
+
+  private Vec2 a, b;
+
+  @Setup
+  public void setup() {
+    a = vec(0.25, -1.5);
+    b = vec(3.0, 0.75);
+  }
+
+  @Benchmark
+  public Vec2 add() {
+    return a.add(b);
+  }
+
+  @Benchmark
+  public Vec2 mul() {
+    return a.mul(b);
+  }
+
+  @Benchmark
+  public double dot() {
+    return Vec.dot(a, b);
+  }
+
+  @Benchmark
+  public double cross() {
+    return Vec2.cross(a, b);
+  }
+
+  @Benchmark
+  public Vec2 lerp() {
+    return Vec.lerp(a, b, 0.5);
+  }
+
+  @Benchmark
+  public Vec2 norm() {
+    return a.norm();
+  }
+
+  @Benchmark
+  public boolean equals() {
+    return Vec.equals(a, b, 1e-3);
+  }
+}
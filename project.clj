@@ -7,7 +7,11 @@
   :profiles {:dev {:dependencies [[org.clojure/clojure "1.8.0"]
                                   [criterium "0.4.3"]
                                   [virgil "0.1.8"]
-                                  [org.clojure/test.check "0.9.0"]]}}
+                                  [org.clojure/test.check "0.9.0"]]}
+             :benchmark {:java-source-paths ["benchmarks"]
+                         :dependencies [[org.openjdk.jmh/jmh-core "1.21"]
+                                        [org.openjdk.jmh/jmh-generator-annprocess "1.21"]]}}
+  :aliases {"benchmark" ["with-profile" "+benchmark" "do" "javac," "run" "-m" "org.openjdk.jmh.Main"]}
   :jvm-opts ^:replace ["-server"
                        "-Xmx10g"
                        "-ea:io.lacuna..."
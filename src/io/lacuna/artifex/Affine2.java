@@ -0,0 +1,189 @@
+package io.lacuna.artifex;
+
+import io.lacuna.artifex.utils.Hashes;
+
+/**
+ * A two-dimensional affine transform, equivalent to a {@link Matrix3} whose bottom row is {@code [0, 0, 1]}.  Since only
+ * six elements are stored, and each is held in a field rather than an array, composing these transforms and mapping
+ * points through them is considerably cheaper than the general case.
+ * <p>
+ * The bulk {@code transform} methods map coordinate buffers in place, and are meant for point clouds and packed curve
+ * control points, where allocating a {@link Vec2} per point would dominate the cost of the transform.
+ */
+public class Affine2 {
+
+  public static final Affine2 IDENTITY = new Affine2(1, 0, 0, 0, 1, 0);
+
+  public final double m00, m01, m02, m10, m11, m12;
+
+  Affine2(double m00, double m01, double m02,
+          double m10, double m11, double m12) {
+    this.m00 = m00;
+    this.m01 = m01;
+    this.m02 = m02;
+    this.m10 = m10;
+    this.m11 = m11;
+    this.m12 = m12;
+  }
+
+  public static Affine2 translate(double x, double y) {
+    return new Affine2(
+      1, 0, x,
+      0, 1, y);
+  }
+
+  public static Affine2 translate(Vec2 v) {
+    return translate(v.x, v.y);
+  }
+
+  public static Affine2 scale(double x, double y) {
+    return new Affine2(x, 0, 0, 0, y, 0);
+  }
+
+  public static Affine2 scale(Vec2 v) {
+    return scale(v.x, v.y);
+  }
+
+  public static Affine2 scale(double k) {
+    return scale(k, k);
+  }
+
+  public static Affine2 rotate(double radians) {
+    double c = Math.cos(radians);
+    double s = Math.sin(radians);
+    return new Affine2(c, -s, 0, s, c, 0);
+  }
+
+  public static Affine2 mul(Affine2... transforms) {
+    Affine2 m = transforms[0];
+    for (int i = 1; i < transforms.length; i++) {
+      m = m.mul(transforms[i]);
+    }
+    return m;
+  }
+
+  ///
+
+  /**
+   * @return the transform which applies {@code b}, and then this transform, as per {@link Matrix3#mul(Matrix3)}
+   */
+  public Affine2 mul(Affine2 b) {
+    return new Affine2(
+      (m00 * b.m00) + (m01 * b.m10),
+      (m00 * b.m01) + (m01 * b.m11),
+      (m00 * b.m02) + (m01 * b.m12) + m02,
+      (m10 * b.m00) + (m11 * b.m10),
+      (m10 * b.m01) + (m11 * b.m11),
+      (m10 * b.m02) + (m11 * b.m12) + m12);
+  }
+
+  /**
+   * @return the determinant of the transform, which is the factor by which it scales areas, and is negative if it
+   * reverses orientation
+   */
+  public double determinant() {
+    return (m00 * m11) - (m01 * m10);
+  }
+
+  /**
+   * @return the transform which undoes this transform
+   * @throws IllegalStateException if the transform is singular, and so collapses the plane onto a line or a point
+   */
+  public Affine2 inverse() {
+    double det = determinant();
+    if (det == 0 || !Double.isFinite(det)) {
+      throw new IllegalStateException("transform is not invertible");
+    }
+
+    double
+      i00 = m11 / det, i01 = -m01 / det,
+      i10 = -m10 / det, i11 = m00 / det;
+
+    return new Affine2(
+      i00, i01, -((i00 * m02) + (i01 * m12)),
+      i10, i11, -((i10 * m02) + (i11 * m12)));
+  }
+
+  /**
+   * @return true if the transform only translates and scales, and so maps horizontal and vertical lines onto horizontal
+   * and vertical lines
+   */
+  public boolean isAxisAligned() {
+    return m01 == 0 && m10 == 0;
+  }
+
+  public Matrix3 matrix3() {
+    return new Matrix3(m00, m01, m02, m10, m11, m12, 0, 0, 1);
+  }
+
+  ///
+
+  public Vec2 transform(Vec2 v) {
+    return new Vec2(
+      (v.x * m00) + (v.y * m01) + m02,
+      (v.x * m10) + (v.y * m11) + m12);
+  }
+
+  /**
+   * Transforms {@code count} points stored as interleaved coordinates in {@code coords}, beginning with the point at
+   * {@code [coords[offset], coords[offset + 1]]}, in place.
+   *
+   * @return {@code coords}
+   */
+  public double[] transform(double[] coords, int offset, int count) {
+    int end = offset + (count << 1);
+    if (offset < 0 || count < 0 || end > coords.length) {
+      throw new IndexOutOfBoundsException("points [" + offset + ", " + end + ") must be within the array");
+    }
+
+    double m00 = this.m00, m01 = this.m01, m02 = this.m02, m10 = this.m10, m11 = this.m11, m12 = this.m12;
+    for (int i = offset; i < end; i += 2) {
+      double x = coords[i], y = coords[i + 1];
+      coords[i] = (x * m00) + (y * m01) + m02;
+      coords[i + 1] = (x * m10) + (y * m11) + m12;
+    }
+    return coords;
+  }
+
+  /**
+   * Transforms the points {@code [xs[i], ys[i]]} for each {@code i} in {@code [offset, offset + count)} in place.
+   */
+  public void transform(double[] xs, double[] ys, int offset, int count) {
+    int end = offset + count;
+    if (offset < 0 || count < 0 || end > xs.length || end > ys.length) {
+      throw new IndexOutOfBoundsException("points [" + offset + ", " + end + ") must be within both arrays");
+    }
+
+    double m00 = this.m00, m01 = this.m01, m02 = this.m02, m10 = this.m10, m11 = this.m11, m12 = this.m12;
+    for (int i = offset; i < end; i++) {
+      double x = xs[i], y = ys[i];
+      xs[i] = (x * m00) + (y * m01) + m02;
+      ys[i] = (x * m10) + (y * m11) + m12;
+    }
+  }
+
+  ///
+
+  @Override
+  public int hashCode() {
+    return (Hashes.hash(m00, m01, m02) * 31) + Hashes.hash(m10, m11, m12);
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    if (this == obj) {
+      return true;
+    } else if (obj instanceof Affine2) {
+      Affine2 m = (Affine2) obj;
+      return Double.compare(m00, m.m00) == 0 && Double.compare(m01, m.m01) == 0 && Double.compare(m02, m.m02) == 0
+        && Double.compare(m10, m.m10) == 0 && Double.compare(m11, m.m11) == 0 && Double.compare(m12, m.m12) == 0;
+    } else {
+      return false;
+    }
+  }
+
+  @Override
+  public String toString() {
+    return m00 + ", " + m01 + ", " + m02 + ", " + m10 + ", " + m11 + ", " + m12;
+  }
+}
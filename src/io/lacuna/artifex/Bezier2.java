@@ -1,6 +1,7 @@
 package io.lacuna.artifex;
 
 import io.lacuna.artifex.utils.DoubleAccumulator;
+import io.lacuna.artifex.utils.Vectors;
 import io.lacuna.bifurcan.LinearList;
 
 import java.util.ArrayList;
@@ -51,8 +52,35 @@ public class Bezier2 {
   }
 
   public static double signedDistance(Vec2 p, Vec2 a, Vec2 b) {
-    Vec2 d = b.sub(a);
-    return (cross(p, d) + cross(b, a)) / d.length();
+    return Vectors.signedDistance(p.x, p.y, a.x, a.y, b.x, b.y);
+  }
+
+  /**
+   * @return false if a single coordinate of a quadratic curve has an extremum within (0, 1), as determined by
+   * {@link QuadraticBezier2#inflections()}
+   */
+  static boolean isMonotonic(double p0, double p1, double p2) {
+    return !inside(1e-10, (p0 - p1) / ((p0 - (p1 * 2)) + p2), 1 - 1e-10);
+  }
+
+  /**
+   * @param acc scratch space for at least two roots
+   * @return false if a single coordinate of a cubic curve has an extremum within (0, 1), as determined by
+   * {@link CubicBezier2#inflections()}
+   */
+  static boolean isMonotonic(double p0, double p1, double p2, double p3, double[] acc) {
+    double
+      a0 = p1 - p0,
+      a1 = ((p2 - p1) - a0) * 2,
+      a2 = ((p3 - (p2 * 3)) + (p1 * 3)) - p0;
+
+    int roots = solveQuadratic(a2, a1, a0, acc);
+    for (int i = 0; i < roots; i++) {
+      if (inside(1e-7, acc[i], 1 - 1e-7)) {
+        return false;
+      }
+    }
+    return true;
   }
 
   public static class QuadraticBezier2 implements Curve2 {
@@ -61,7 +89,7 @@ public class Bezier2 {
 
     private boolean noInflections = false;
 
-    private QuadraticBezier2(Vec2 p0, Vec2 p1, Vec2 p2, boolean noInflections) {
+    QuadraticBezier2(Vec2 p0, Vec2 p1, Vec2 p2, boolean noInflections) {
       this(p0, p1, p2);
       this.noInflections = noInflections;
     }
@@ -94,9 +122,7 @@ public class Bezier2 {
 
     @Override
     public double signedArea() {
-      return ((p2.x * (p0.y - (2 * p1.y)))
-        + (2 * p1.x * (p2.y - p0.y))
-        + (p0.x * ((2 * p1.y) + p2.y))) / 6;
+      return Vectors.quadraticArea(p0.x, p0.y, p1.x, p1.y, p2.x, p2.y);
     }
 
     @Override
@@ -107,12 +133,7 @@ public class Bezier2 {
         return end();
       }
 
-      double mt = 1 - t;
-
-      // (1 - t)^2 * p0 + 2t(1 - t) * p1 + t^2 * p2;
-      return p0.mul(mt * mt)
-        .add(p1.mul(2 * t * mt))
-        .add(p2.mul(t * t));
+      return new Vec2(Vectors.quadratic(p0.x, p1.x, p2.x, t), Vectors.quadratic(p0.y, p1.y, p2.y, t));
     }
 
     @Override
@@ -124,6 +145,32 @@ public class Bezier2 {
         .add(p2.sub(p1).mul(2 * t));
     }
 
+    @Override
+    public void positions(double[] ts, double[] xs, double[] ys) {
+      if (xs.length < ts.length || ys.length < ts.length) {
+        throw new IllegalArgumentException("output arrays must be at least as long as the input");
+      }
+      double x0 = p0.x, y0 = p0.y, x1 = p1.x, y1 = p1.y, x2 = p2.x, y2 = p2.y;
+      for (int i = 0; i < ts.length; i++) {
+        xs[i] = Vectors.quadratic(x0, x1, x2, ts[i]);
+        ys[i] = Vectors.quadratic(y0, y1, y2, ts[i]);
+      }
+    }
+
+    @Override
+    public void directions(double[] ts, double[] xs, double[] ys) {
+      if (xs.length < ts.length || ys.length < ts.length) {
+        throw new IllegalArgumentException("output arrays must be at least as long as the input");
+      }
+      double ax = p1.x - p0.x, ay = p1.y - p0.y, bx = p2.x - p1.x, by = p2.y - p1.y;
+      for (int i = 0; i < ts.length; i++) {
+        double t = ts[i];
+        double a = 2 * (1 - t), b = 2 * t;
+        xs[i] = (ax * a) + (bx * b);
+        ys[i] = (ay * a) + (by * b);
+      }
+    }
+
     @Override
     public QuadraticBezier2 endpoints(Vec2 start, Vec2 end) {
       Vec2 ad = p1.sub(p0);
@@ -261,10 +308,13 @@ public class Bezier2 {
 
     public final Vec2 p0, p1, p2, p3;
 
+    // the differences between control points, which are the coefficients for the derivatives used by nearestPoint()
+    private final double abx, aby, bcx, bcy, cdx, cdy, brx, bry, asx, asy;
+
     private boolean noInflections = false;
     private Box2 bounds;
 
-    private CubicBezier2(Vec2 p0, Vec2 p1, Vec2 p2, Vec2 p3, boolean noInflections) {
+    CubicBezier2(Vec2 p0, Vec2 p1, Vec2 p2, Vec2 p3, boolean noInflections) {
       this(p0, p1, p2, p3);
       this.noInflections = noInflections;
     }
@@ -274,6 +324,17 @@ public class Bezier2 {
       this.p1 = p1;
       this.p2 = p2;
       this.p3 = p3;
+
+      this.abx = p1.x - p0.x;
+      this.aby = p1.y - p0.y;
+      this.bcx = p2.x - p1.x;
+      this.bcy = p2.y - p1.y;
+      this.cdx = p3.x - p2.x;
+      this.cdy = p3.y - p2.y;
+      this.brx = bcx - abx;
+      this.bry = bcy - aby;
+      this.asx = (cdx - bcx) - brx;
+      this.asy = (cdy - bcy) - bry;
     }
 
     @Override
@@ -284,33 +345,17 @@ public class Bezier2 {
         return end();
       }
 
-      double mt = 1 - t;
-      double mt2 = mt * mt;
-      double t2 = t * t;
-
-      // (1 - t)^3 * p0 + 3t(1 - t)^2 * p1 + 3(1 - t)t^2 * p2 + t^3 * p3;
-      return p0.mul(mt2 * mt)
-        .add(p1.mul(3 * mt2 * t))
-        .add(p2.mul(3 * mt * t2))
-        .add(p3.mul(t2 * t));
+      return new Vec2(Vectors.cubic(p0.x, p1.x, p2.x, p3.x, t), Vectors.cubic(p0.y, p1.y, p2.y, p3.y, t));
     }
 
     @Override
     public Vec2 direction(double t) {
-      double mt = 1 - t;
-
-      // 3(1 - t)^2 * (p1 - p0) + 6(1 - t)t * (p2 - p1) + 3t^2 * (p3 - p2)
-      return p1.sub(p0).mul(3 * mt * mt)
-        .add(p2.sub(p1).mul(6 * mt * t))
-        .add(p3.sub(p2).mul(3 * t * t));
+      return new Vec2(dx(t), dy(t));
     }
 
     @Override
     public double signedArea() {
-      return ((p3.x * (-p0.y - (3 * p1.y) - (6 * p2.y)))
-        - (3 * p2.x * (p0.y + p1.y - (2 * p3.y)))
-        + (3 * p1.x * ((-2 * p0.y) + p2.y + p3.y))
-        + (p0.x * ((6 * p1.y) + (3 * p2.y) + p3.y))) / 20;
+      return Vectors.cubicArea(p0.x, p0.y, p1.x, p1.y, p2.x, p2.y, p3.x, p3.y);
     }
 
     @Override
@@ -376,33 +421,33 @@ public class Bezier2 {
     }
 
     @Override
+    public double nearestPoint(Vec2 p) {
+      return nearestPoint(p.x, p.y, null);
+    }
+
     /**
-     * This quintic solver is adapted from https://github.com/Chlumsky/msdfgen, which is available under the MIT
-     * license.
+     * A Newton search from several evenly spaced starting parameters, adapted from https://github.com/Chlumsky/msdfgen,
+     * which is available under the MIT license.  It works directly on the coordinates, so that it doesn't allocate.
      */
-    public double nearestPoint(Vec2 p) {
-      Vec2 qa = p0.sub(p);
-      Vec2 ab = p1.sub(p0);
-      Vec2 bc = p2.sub(p1);
-      Vec2 cd = p3.sub(p2);
-      Vec2 qd = p3.sub(p);
-      Vec2 br = bc.sub(ab);
-      Vec2 as = cd.sub(bc).sub(br);
+    @Override
+    public double nearestPoint(double px, double py, double[] out) {
+      double qax = p0.x - px, qay = p0.y - py;
+      double qdx = p3.x - px, qdy = p3.y - py;
 
-      double minDistance = sign(cross(ab, qa)) * qa.length();
-      double param = -dot(qa, ab) / dot(ab, ab);
+      double minDistance = sign((abx * qay) - (aby * qax)) * sqrt((qax * qax) + (qay * qay));
+      double param = -((qax * abx) + (qay * aby)) / ((abx * abx) + (aby * aby));
 
-      double distance = sign(cross(cd, qd)) * qd.length();
+      double distance = sign((cdx * qdy) - (cdy * qdx)) * sqrt((qdx * qdx) + (qdy * qdy));
       if (abs(distance) < abs(minDistance)) {
         minDistance = distance;
-        param = max(1, dot(p.sub(p2), cd) / dot(cd, cd));
+        param = max(1, (((px - p2.x) * cdx) + ((py - p2.y) * cdy)) / ((cdx * cdx) + (cdy * cdy)));
       }
 
       for (int i = 0; i < SEARCH_STARTS; i++) {
         double t = (double) i / (SEARCH_STARTS - 1);
         for (int step = 0; ; step++) {
-          Vec2 qpt = position(t).sub(p);
-          distance = sign(cross(direction(t), qpt)) * qpt.length();
+          double qx = x(t) - px, qy = y(t) - py;
+          distance = sign((dx(t) * qy) - (dy(t) * qx)) * sqrt((qx * qx) + (qy * qy));
           if (abs(distance) < abs(minDistance)) {
             minDistance = distance;
             param = t;
@@ -412,9 +457,11 @@ public class Bezier2 {
             break;
           }
 
-          Vec2 d1 = as.mul(3 * t * t).add(br.mul(6 * t)).add(ab.mul(3));
-          Vec2 d2 = as.mul(6 * t).add(br.mul(6));
-          double dt = dot(qpt, d1) / (dot(d1, d1) + dot(qpt, d2));
+          double d1x = ((asx * (3 * t * t)) + (brx * (6 * t))) + (abx * 3);
+          double d1y = ((asy * (3 * t * t)) + (bry * (6 * t))) + (aby * 3);
+          double d2x = (asx * (6 * t)) + (brx * 6);
+          double d2y = (asy * (6 * t)) + (bry * 6);
+          double dt = ((qx * d1x) + (qy * d1y)) / (((d1x * d1x) + (d1y * d1y)) + ((qx * d2x) + (qy * d2y)));
           if (abs(dt) < EPSILON) {
             break;
           }
@@ -426,9 +473,59 @@ public class Bezier2 {
         }
       }
 
+      if (out != null) {
+        double t = max(0, min(1, param));
+        out[0] = x(t);
+        out[1] = y(t);
+        out[2] = dx(t);
+        out[3] = dy(t);
+      }
+
       return param;
     }
 
+    @Override
+    public void positions(double[] ts, double[] xs, double[] ys) {
+      if (xs.length < ts.length || ys.length < ts.length) {
+        throw new IllegalArgumentException("output arrays must be at least as long as the input");
+      }
+      double x0 = p0.x, y0 = p0.y, x1 = p1.x, y1 = p1.y, x2 = p2.x, y2 = p2.y, x3 = p3.x, y3 = p3.y;
+      for (int i = 0; i < ts.length; i++) {
+        xs[i] = Vectors.cubic(x0, x1, x2, x3, ts[i]);
+        ys[i] = Vectors.cubic(y0, y1, y2, y3, ts[i]);
+      }
+    }
+
+    @Override
+    public void directions(double[] ts, double[] xs, double[] ys) {
+      if (xs.length < ts.length || ys.length < ts.length) {
+        throw new IllegalArgumentException("output arrays must be at least as long as the input");
+      }
+      for (int i = 0; i < ts.length; i++) {
+        xs[i] = dx(ts[i]);
+        ys[i] = dy(ts[i]);
+      }
+    }
+
+    // scalar equivalents of position() and direction()
+
+    private double x(double t) {
+      return Vectors.cubic(p0.x, p1.x, p2.x, p3.x, t);
+    }
+
+    private double y(double t) {
+      return Vectors.cubic(p0.y, p1.y, p2.y, p3.y, t);
+    }
+
+    // the derivative is a quadratic curve over the differences between control points
+    private double dx(double t) {
+      return 3 * Vectors.quadratic(abx, bcx, cdx, t);
+    }
+
+    private double dy(double t) {
+      return 3 * Vectors.quadratic(aby, bcy, cdy, t);
+    }
+
     @Override
     public Curve2 transform(Matrix3 m) {
       return new CubicBezier2(p0.transform(m), p1.transform(m), p2.transform(m), p3.transform(m));
@@ -7,6 +7,7 @@ import java.util.Arrays;
 import static io.lacuna.artifex.Box.box;
 import static io.lacuna.artifex.Vec2.cross;
 import static io.lacuna.artifex.utils.Scalars.EPSILON;
+import static io.lacuna.artifex.utils.Scalars.clamp;
 import static java.lang.Math.abs;
 
 /**
@@ -129,6 +130,80 @@ public interface Curve2 {
    */
   double nearestPoint(Vec2 p);
 
+  /**
+   * Equivalent to {@link #nearestPoint(Vec2)}, but also writes the position and direction at the nearest point, with
+   * the parameter clamped to [0, 1], into {@code out} as {@code [x, y, dx, dy]}.  This lets callers which need both,
+   * such as signed distance calculations, avoid evaluating the curve a second time.
+   *
+   * @param out an array of at least four elements, or null if only the parameter is needed
+   * @return the {@code t} parameter representing the closest point on the curve, not necessarily within [0,1]
+   */
+  default double nearestPoint(double x, double y, double[] out) {
+    double t = nearestPoint(new Vec2(x, y));
+    if (out == null) {
+      return t;
+    }
+
+    double clamped = clamp(0, t, 1);
+    Vec2 position = position(clamped);
+    Vec2 direction = direction(clamped);
+    out[0] = position.x;
+    out[1] = position.y;
+    out[2] = direction.x;
+    out[3] = direction.y;
+    return t;
+  }
+
+  /**
+   * Evaluates {@link #position(double)} at each parameter in {@code ts}, writing the coordinates into {@code xs} and
+   * {@code ys}.  Implementations are written as plain loops over primitives, so that they don't allocate and can be
+   * vectorized.
+   */
+  default void positions(double[] ts, double[] xs, double[] ys) {
+    if (xs.length < ts.length || ys.length < ts.length) {
+      throw new IllegalArgumentException("output arrays must be at least as long as the input");
+    }
+    for (int i = 0; i < ts.length; i++) {
+      Vec2 v = position(ts[i]);
+      xs[i] = v.x;
+      ys[i] = v.y;
+    }
+  }
+
+  /**
+   * Evaluates {@link #direction(double)} at each parameter in {@code ts}, writing the coordinates into {@code xs} and
+   * {@code ys}.
+   */
+  default void directions(double[] ts, double[] xs, double[] ys) {
+    if (xs.length < ts.length || ys.length < ts.length) {
+      throw new IllegalArgumentException("output arrays must be at least as long as the input");
+    }
+    for (int i = 0; i < ts.length; i++) {
+      Vec2 v = direction(ts[i]);
+      xs[i] = v.x;
+      ys[i] = v.y;
+    }
+  }
+
+  /**
+   * Writes the distance from each point {@code [xs[i], ys[i]]} to the nearest point on the curve into {@code out[i]}.
+   *
+   * @return {@code out}
+   */
+  default double[] distances(double[] xs, double[] ys, double[] out) {
+    if (ys.length != xs.length || out.length < xs.length) {
+      throw new IllegalArgumentException("xs, ys, and out must have the same length");
+    }
+    double[] nearest = new double[4];
+    for (int i = 0; i < xs.length; i++) {
+      nearestPoint(xs[i], ys[i], nearest);
+      double dx = xs[i] - nearest[0];
+      double dy = ys[i] - nearest[1];
+      out[i] = Math.sqrt((dx * dx) + (dy * dy));
+    }
+    return out;
+  }
+
   default Box2 bounds() {
     Box2 bounds = box(start(), end());
     for (double t : inflections()) {
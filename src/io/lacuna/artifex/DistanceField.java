@@ -1,39 +1,94 @@
 package io.lacuna.artifex;
 
+import io.lacuna.bifurcan.IList;
 import io.lacuna.bifurcan.IMap;
+import io.lacuna.bifurcan.LinearList;
 import io.lacuna.bifurcan.LinearMap;
 
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.ShortBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 import static io.lacuna.artifex.Vec.*;
 import static io.lacuna.artifex.Vec2.cross;
 import static io.lacuna.artifex.utils.Scalars.clamp;
 import static java.lang.Math.*;
+import static java.nio.channels.FileChannel.MapMode.READ_ONLY;
+import static java.nio.file.StandardOpenOption.*;
 
 /**
  * @author ztellman
  */
 public class DistanceField {
 
-  private final float[][][] field;
+  /**
+   * The number of channels for each texel.
+   */
+  public static final int CHANNELS = 3;
+
+  /**
+   * The representation of each channel.  Quantized encodings store the distance normalized to [0, 1] as per
+   * {@link #pixel(int, int, float)}, where the distance range is fixed when the field is quantized.
+   */
+  public enum Encoding {
+    FLOAT32(4),
+    UNORM8(1),
+    UNORM16(2);
+
+    public final int bytes;
+
+    Encoding(int bytes) {
+      this.bytes = bytes;
+    }
+  }
+
+  // texels are stored in row-major order, starting at [0, 0], with the channels of each texel adjacent to each other,
+  // and only the buffer for our encoding is non-null
+  private final FloatBuffer floats;
+  private final ShortBuffer shorts;
+  private final ByteBuffer bytes;
+
+  private final Encoding encoding;
+  private final float range;
+  private final int width, height;
   private final Box2 shapeBounds;
   private final Box2 fieldBounds;
 
-  private DistanceField(float[][][] field, Box2 shapeBounds, Box2 fieldBounds) {
-    this.field = field;
+  private DistanceField(Buffer texels, Encoding encoding, float range, int width, int height, Box2 shapeBounds, Box2 fieldBounds) {
+    this.floats = encoding == Encoding.FLOAT32 ? (FloatBuffer) texels : null;
+    this.shorts = encoding == Encoding.UNORM16 ? (ShortBuffer) texels : null;
+    this.bytes = encoding == Encoding.UNORM8 ? (ByteBuffer) texels : null;
+    this.encoding = encoding;
+    this.range = range;
+    this.width = width;
+    this.height = height;
     this.shapeBounds = shapeBounds;
     this.fieldBounds = fieldBounds;
   }
 
   public int width() {
-    return field.length;
+    return width;
   }
 
   public int height() {
-    return field[0].length;
+    return height;
   }
 
   public Box2 shapeBounds() {
@@ -44,28 +99,135 @@ public class DistanceField {
     return fieldBounds;
   }
 
+  public Encoding encoding() {
+    return encoding;
+  }
+
+  /**
+   * @return the range of distances representable by a quantized encoding, or 0 if the field isn't quantized
+   */
+  public float range() {
+    return range;
+  }
+
+  /**
+   * @return a read-only view of the texels, which shares the underlying storage.  The distance for channel {@code c} of
+   * the texel at [x, y] is at index {@code ((y * width()) + x) * CHANNELS + c}.
+   * @throws IllegalStateException if the field is quantized
+   */
+  public FloatBuffer buffer() {
+    if (encoding != Encoding.FLOAT32) {
+      throw new IllegalStateException("field is quantized as " + encoding + ", use texels() instead");
+    }
+    return floats.asReadOnlyBuffer();
+  }
+
+  /**
+   * @return a read-only view of the texels, with the same layout as {@link #buffer()}, which is a {@code FloatBuffer},
+   * {@code ShortBuffer}, or {@code ByteBuffer} depending on the encoding
+   */
+  public Buffer texels() {
+    switch (encoding) {
+      case FLOAT32:
+        return floats.asReadOnlyBuffer();
+      case UNORM16:
+        return shorts.asReadOnlyBuffer();
+      default:
+        return bytes.asReadOnlyBuffer();
+    }
+  }
+
+  /**
+   * @return a copy of this field where each channel is stored as an unsigned normalized integer, clamping distances to
+   * [-range / 4, range / 4], which is the same mapping as {@link #pixel(int, int, float)} with a {@code scale} of {@code range}
+   */
+  public DistanceField quantize(Encoding encoding, float range) {
+    if (encoding == Encoding.FLOAT32) {
+      throw new IllegalArgumentException("can only quantize to UNORM8 or UNORM16");
+    }
+
+    int size = width * height * CHANNELS;
+    Buffer texels = encoding == Encoding.UNORM8
+      ? ByteBuffer.allocate(size)
+      : ShortBuffer.allocate(size);
+    double max = encoding == Encoding.UNORM8 ? 0xFF : 0xFFFF;
+
+    for (int i = 0; i < size; i++) {
+      int n = (int) Math.round(clamp(0, (value(i) / (range / 2)) + 0.5, 1) * max);
+      if (encoding == Encoding.UNORM8) {
+        ((ByteBuffer) texels).put(i, (byte) n);
+      } else {
+        ((ShortBuffer) texels).put(i, (short) n);
+      }
+    }
+
+    return new DistanceField(texels, encoding, range, width, height, shapeBounds, fieldBounds);
+  }
+
+  private int index(int x, int y) {
+    return ((y * width) + x) * CHANNELS;
+  }
+
+  private float value(int idx) {
+    switch (encoding) {
+      case FLOAT32:
+        return floats.get(idx);
+      case UNORM16:
+        return (((shorts.get(idx) & 0xFFFF) / (float) 0xFFFF) - 0.5f) * (range / 2);
+      default:
+        return (((bytes.get(idx) & 0xFF) / (float) 0xFF) - 0.5f) * (range / 2);
+    }
+  }
+
   private static Vec3 normalizedPixel(Vec3 pixel, float range) {
     return pixel.div(range / 2).add(0.5).clamp(0, 1);
   }
 
   private Vec3 pixel(int x, int y) {
-    float[] pixel = field[x][y];
-    return new Vec3(pixel[0], pixel[1], pixel[2]);
+    int idx = index(x, y);
+    return new Vec3(value(idx), value(idx + 1), value(idx + 2));
   }
 
-  public Vec3 get(double x, double y) {
-    int x1 = (int) (x * (width() - 1));
-    int x2 = min(width() - 1, x1 + 1);
-    int y1 = (int) (y * (height() - 1));
-    int y2 = min(height() - 1, y1 + 1);
+  /**
+   * Writes the distances for the texel at [x, y] into the first {@link #CHANNELS} entries of {@code out}.
+   *
+   * @return {@code out}
+   */
+  public float[] pixel(int x, int y, float[] out) {
+    int idx = index(x, y);
+    for (int c = 0; c < CHANNELS; c++) {
+      out[c] = value(idx + c);
+    }
+    return out;
+  }
 
-    double xt = (x * width()) - x1;
-    double yt = (y * height()) - y1;
+  /**
+   * Writes the interpolated distances at [x, y], where both are within [0, 1], into the first {@link #CHANNELS}
+   * entries of {@code out}.
+   *
+   * @return {@code out}
+   */
+  public double[] get(double x, double y, double[] out) {
+    int x1 = (int) (x * (width - 1));
+    int x2 = min(width - 1, x1 + 1);
+    int y1 = (int) (y * (height - 1));
+    int y2 = min(height - 1, y1 + 1);
+
+    double xt = (x * width) - x1;
+    double yt = (y * height) - y1;
+
+    int i11 = index(x1, y1), i12 = index(x1, y2), i21 = index(x2, y1), i22 = index(x2, y2);
+    for (int c = 0; c < CHANNELS; c++) {
+      double a = value(i11 + c) + ((value(i12 + c) - (double) value(i11 + c)) * yt);
+      double b = value(i21 + c) + ((value(i22 + c) - (double) value(i21 + c)) * yt);
+      out[c] = a + ((b - a) * xt);
+    }
+    return out;
+  }
 
-    return lerp(
-      lerp(pixel(x1, y1), pixel(x1, y2), yt),
-      lerp(pixel(x2, y1), pixel(x2, y2), yt),
-      xt);
+  public Vec3 get(double x, double y) {
+    double[] d = get(x, y, new double[CHANNELS]);
+    return new Vec3(d[0], d[1], d[2]);
   }
 
   public Vec3 normalized(double x, double y, double scale) {
@@ -82,10 +244,205 @@ public class DistanceField {
   }
 
   public Vec3 pixel(int x, int y, float scale) {
-    float[] colors = field[x][y];
-    return new Vec3(colors[0], colors[1], colors[2]).div(scale / 2).add(0.5).clamp(0, 1);
+    return pixel(x, y).div(scale / 2).add(0.5).clamp(0, 1);
+  }
+
+  /// serialization
+
+  private static final int FIELD_MAGIC = 0x41464446, ATLAS_MAGIC = 0x41464441; // "AFDF" and "AFDA"
+  private static final short VERSION = 1;
+  private static final int HEADER_SIZE = 84, ATLAS_HEADER_SIZE = 8;
+
+  /**
+   * @return the number of bytes written by {@link #encode(ByteBuffer)}
+   */
+  public int encodedSize() {
+    return HEADER_SIZE + payloadSize(encoding, width, height);
+  }
+
+  // the payload is padded to a multiple of four bytes, so that the next field in an atlas is aligned
+  private static int payloadSize(Encoding encoding, int width, int height) {
+    return ((width * height * CHANNELS * encoding.bytes) + 3) & ~3;
+  }
+
+  /**
+   * Writes the field into {@code buf} at its current position, in little-endian order, with the layout:
+   * <pre>
+   * int32    magic number, "AFDF"
+   * int16    version
+   * int8     encoding, as the ordinal of {@link Encoding}
+   * int8     channels
+   * int32    width
+   * int32    height
+   * float64  shape bounds, as lx, ly, ux, uy
+   * float64  field bounds, as lx, ly, ux, uy
+   * float32  the distance range of a quantized encoding, otherwise 0
+   * ...      the texels, in the same layout as {@link #buffer()}, padded to a multiple of four bytes
+   * </pre>
+   *
+   * @return {@code buf}
+   */
+  public ByteBuffer encode(ByteBuffer buf) {
+    ByteOrder order = buf.order();
+    buf.order(ByteOrder.LITTLE_ENDIAN)
+      .putInt(FIELD_MAGIC)
+      .putShort(VERSION)
+      .put((byte) encoding.ordinal())
+      .put((byte) CHANNELS)
+      .putInt(width)
+      .putInt(height)
+      .putDouble(shapeBounds.lx).putDouble(shapeBounds.ly).putDouble(shapeBounds.ux).putDouble(shapeBounds.uy)
+      .putDouble(fieldBounds.lx).putDouble(fieldBounds.ly).putDouble(fieldBounds.ux).putDouble(fieldBounds.uy)
+      .putFloat(range);
+
+    int start = buf.position();
+    switch (encoding) {
+      case FLOAT32:
+        FloatBuffer fs = floats.duplicate();
+        fs.clear();
+        buf.asFloatBuffer().put(fs);
+        break;
+      case UNORM16:
+        ShortBuffer ss = shorts.duplicate();
+        ss.clear();
+        buf.asShortBuffer().put(ss);
+        break;
+      default:
+        ByteBuffer bs = bytes.duplicate();
+        bs.clear();
+        buf.duplicate().put(bs);
+    }
+    int size = width * height * CHANNELS * encoding.bytes, padded = payloadSize(encoding, width, height);
+    for (int i = size; i < padded; i++) {
+      buf.put(start + i, (byte) 0);
+    }
+    buf.position(start + padded);
+
+    buf.order(order);
+    return buf;
+  }
+
+  /**
+   * Reads a field written by {@link #encode(ByteBuffer)} from {@code buf} at its current position, and advances past
+   * it.  The texels are a view into {@code buf} rather than a copy, so if it's memory-mapped they'll only be read from
+   * disk as they're accessed.
+   */
+  public static DistanceField decode(ByteBuffer buf) {
+    ByteBuffer header = buf.slice().order(ByteOrder.LITTLE_ENDIAN);
+    if (header.remaining() < HEADER_SIZE || header.getInt() != FIELD_MAGIC) {
+      throw new IllegalArgumentException("not an encoded distance field");
+    }
+
+    short version = header.getShort();
+    byte encoding = header.get();
+    byte channels = header.get();
+    if (version != VERSION || encoding < 0 || encoding >= Encoding.values().length || channels != CHANNELS) {
+      throw new IllegalArgumentException(
+        String.format("unsupported distance field, version=%d encoding=%d channels=%d", version, encoding, channels));
+    }
+
+    int width = header.getInt();
+    int height = header.getInt();
+    Box2 shapeBounds = new Box2(header.getDouble(), header.getDouble(), header.getDouble(), header.getDouble());
+    Box2 fieldBounds = new Box2(header.getDouble(), header.getDouble(), header.getDouble(), header.getDouble());
+    float range = header.getFloat();
+
+    Encoding e = Encoding.values()[encoding];
+    int payload = payloadSize(e, width, height);
+    if (header.remaining() < payload) {
+      throw new IllegalArgumentException("truncated distance field");
+    }
+    header.limit(HEADER_SIZE + (width * height * CHANNELS * e.bytes));
+    ByteBuffer texels = header.slice().order(ByteOrder.LITTLE_ENDIAN);
+
+    buf.position(buf.position() + HEADER_SIZE + payload);
+    switch (e) {
+      case FLOAT32:
+        return new DistanceField(texels.asFloatBuffer(), e, 0, width, height, shapeBounds, fieldBounds);
+      case UNORM16:
+        return new DistanceField(texels.asShortBuffer(), e, range, width, height, shapeBounds, fieldBounds);
+      default:
+        return new DistanceField(texels, e, range, width, height, shapeBounds, fieldBounds);
+    }
   }
 
+  /**
+   * Writes {@code fields} to a single atlas file at {@code path}, which can be read via {@link #load(Path)}.
+   */
+  public static void save(Path path, Iterable<DistanceField> fields) throws IOException {
+    IList<DistanceField> fs = LinearList.from(fields);
+    try (FileChannel channel = FileChannel.open(path, CREATE, WRITE, TRUNCATE_EXISTING)) {
+      write(channel, ByteBuffer.allocate(ATLAS_HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN)
+        .putInt(ATLAS_MAGIC)
+        .putInt((int) fs.size()));
+
+      for (DistanceField f : fs) {
+        write(channel, f.encode(ByteBuffer.allocate(f.encodedSize())));
+      }
+    }
+  }
+
+  /**
+   * Memory-maps an atlas file written by {@link #save(Path, Iterable)}, returning the fields in the order they were
+   * written.  Nothing but the headers is read up front.
+   */
+  public static IList<DistanceField> load(Path path) throws IOException {
+    IList<DistanceField> result = new LinearList<>();
+    try (FileChannel channel = FileChannel.open(path, READ)) {
+      long size = channel.size();
+      ByteBuffer header = read(channel, 0, ATLAS_HEADER_SIZE);
+      if (header.getInt() != ATLAS_MAGIC) {
+        throw new IllegalArgumentException("not a distance field atlas: " + path);
+      }
+      int count = header.getInt();
+
+      // a single mapping is limited to 2GB, so large atlases are mapped in several windows
+      long offset = ATLAS_HEADER_SIZE, windowStart = 0;
+      MappedByteBuffer window = null;
+      for (int i = 0; i < count; i++) {
+        ByteBuffer fieldHeader = read(channel, offset, HEADER_SIZE);
+        byte encoding = fieldHeader.get(6);
+        if (encoding < 0 || encoding >= Encoding.values().length) {
+          throw new IllegalArgumentException("unsupported distance field encoding: " + encoding);
+        }
+        fieldHeader.position(8); // width and height
+        long texels = (long) fieldHeader.getInt() * fieldHeader.getInt() * CHANNELS;
+        long length = HEADER_SIZE + (((texels * Encoding.values()[encoding].bytes) + 3) & ~3);
+
+        if (window == null || offset + length > windowStart + window.capacity()) {
+          windowStart = offset;
+          window = channel.map(READ_ONLY, offset, min(size - offset, Integer.MAX_VALUE));
+        }
+
+        window.position((int) (offset - windowStart));
+        result.addLast(decode(window));
+        offset += length;
+      }
+    }
+
+    return result;
+  }
+
+  private static void write(FileChannel channel, ByteBuffer buf) throws IOException {
+    buf.flip();
+    while (buf.hasRemaining()) {
+      channel.write(buf);
+    }
+  }
+
+  private static ByteBuffer read(FileChannel channel, long position, int length) throws IOException {
+    ByteBuffer buf = ByteBuffer.allocate(length).order(ByteOrder.LITTLE_ENDIAN);
+    while (buf.hasRemaining()) {
+      if (channel.read(buf, position + buf.position()) < 0) {
+        throw new EOFException();
+      }
+    }
+    buf.flip();
+    return buf;
+  }
+
+  ///
+
   public static DistanceField from(Region2 region, double sampleFrequency) {
     return from(region, 4, sampleFrequency, Math.toRadians(3));
   }
@@ -103,6 +460,14 @@ public class DistanceField {
   }
 
   public static DistanceField from(Region2 region, int padding, double sampleFrequency, double cornerThreshold) {
+    return from(region, padding, sampleFrequency, cornerThreshold, null);
+  }
+
+  /**
+   * Generates the field on {@code pool}, in bands of rows.  The result is bit-identical to the serial version, which
+   * is used if {@code pool} is null.
+   */
+  public static DistanceField from(Region2 region, int padding, double sampleFrequency, double cornerThreshold, ForkJoinPool pool) {
 
     Box2 shapeBounds = region.bounds();
     int w = (int) Math.ceil(shapeBounds.size().x * sampleFrequency);
@@ -115,32 +480,373 @@ public class DistanceField {
       rings = rings.stream().map(Path2::reverse).collect(Collectors.toList());
     }*/
 
-    IMap<Curve2, Byte> curveMap = new LinearMap<>();
+    CurveGrid grid = new CurveGrid(fieldCurves(region, cornerThreshold), fieldBounds);
+    float[] field = new float[w * h * CHANNELS];
+    forEachBand(h, pool, (lo, hi) -> {
+      CurveGrid.Search search = grid.search();
+      for (int y = lo; y < hi; y++) {
+        for (int x = 0; x < w; x++) {
+          sample(search, center(fieldBounds, w, h, x, y), field, ((y * w) + x) * CHANNELS);
+        }
+      }
+    });
+
+    fixClashes(field, w, h, vec(0, 0), pool);
 
+    return new DistanceField(FloatBuffer.wrap(field), Encoding.FLOAT32, 0, w, h, shapeBounds, fieldBounds);
+  }
+
+  private static FieldCurve[] fieldCurves(Region2 region, double cornerThreshold) {
+    // since ties between curves are resolved by which comes first, iterate in insertion order rather than merging the
+    // maps, whose order depends on identity hashes
+    List<FieldCurve> fieldCurves = new ArrayList<>();
     for (Ring2 r : region.rings()) {
-      curveMap = curveMap.union(edgeColors(r, cornerThreshold));
+      edgeColors(r, cornerThreshold).forEach(e -> fieldCurves.add(new FieldCurve(e.key(), e.value())));
     }
+    return fieldCurves.toArray(new FieldCurve[0]);
+  }
 
-    FieldCurve[] curves = curveMap.stream()
-      .map(e -> new FieldCurve(e.key(), e.value()))
-      .toArray(FieldCurve[]::new);
+  private static Vec2 center(Box2 fieldBounds, int w, int h, int x, int y) {
+    return fieldBounds.lerp(new Vec2((x + 0.5) / (w + 1), (y + 0.5) / (h + 1)));
+  }
 
-    float[][][] field = new float[w][h][3];
-    for (int x = 0; x < w; x++) {
-      for (int y = 0; y < h; y++) {
-        SignedDistance r, g, b;
-        r = g = b = null;
-        Vec2 t = new Vec2((x + 0.5) / (w + 1), (y + 0.5) / (h + 1));
-        Vec2 p = fieldBounds.lerp(t);
+  private static void sample(CurveGrid.Search search, Vec2 p, float[] field, int idx) {
+    search.nearest(p);
+    field[idx] = search.r != null ? (float) search.r.distance() : 0f;
+    field[idx + 1] = search.g != null ? (float) search.g.distance() : 0f;
+    field[idx + 2] = search.b != null ? (float) search.b.distance() : 0f;
+  }
 
-        for (FieldCurve c : curves) {
+  /// incremental updates
 
-          double ds = c.bounds.distanceSquared(p);
+  /**
+   * Equivalent to {@code update(prev, next, Math.toRadians(3))}.
+   */
+  public DistanceField update(Region2 prev, Region2 next) {
+    return update(prev, next, Math.toRadians(3));
+  }
+
+  /**
+   * Returns the field for {@code next}, given that this is the field for {@code prev}, by only resampling the texels
+   * which are near enough to an added or removed curve that their nearest curves may have changed.  The field keeps
+   * its existing bounds, so if {@code next} extends beyond them, it should be regenerated via {@code from()}.
+   * <p>
+   * Curves are compared by value, so {@code next} doesn't need to share any curves with {@code prev}.  A curve whose
+   * edge color has changed is treated as having been removed and added.
+   */
+  public DistanceField update(Region2 prev, Region2 next, double cornerThreshold) {
+    FieldCurve[] curves = fieldCurves(next, cornerThreshold);
+
+    Map<CurveKey, Deque<FieldCurve>> unmatched = new HashMap<>();
+    for (FieldCurve c : fieldCurves(prev, cornerThreshold)) {
+      unmatched.computeIfAbsent(new CurveKey(c), k -> new ArrayDeque<>()).add(c);
+    }
+
+    List<Box2> changed = new ArrayList<>();
+    for (FieldCurve c : curves) {
+      Deque<FieldCurve> cs = unmatched.get(new CurveKey(c));
+      if (cs == null || cs.isEmpty()) {
+        changed.add(c.bounds);
+      } else {
+        cs.pop();
+      }
+    }
+    unmatched.values().forEach(cs -> cs.forEach(c -> changed.add(c.bounds)));
+
+    return update(curves, changed.toArray(new Box2[0]));
+  }
+
+  /**
+   * Equivalent to {@code update(region, dirty, Math.toRadians(3))}.
+   */
+  public DistanceField update(Region2 region, Box2 dirty) {
+    return update(region, dirty, Math.toRadians(3));
+  }
+
+  /**
+   * Returns the field for {@code region}, given that it only differs from the region used to generate this field
+   * within {@code dirty}.  This must contain every added or removed curve, as well as any curve whose edge color has
+   * changed, which can happen anywhere along a ring whose corners have changed.  If that's hard to determine, use
+   * {@link #update(Region2, Region2, double)} instead.
+   */
+  public DistanceField update(Region2 region, Box2 dirty, double cornerThreshold) {
+    return update(fieldCurves(region, cornerThreshold), new Box2[]{dirty});
+  }
+
+  /**
+   * A texel can only be affected by a changed curve if that curve is no farther than the nearest curve in one of its
+   * channels, both before and after the change.  Since each nearest distance changes no faster than the distance to the
+   * changed curves, the affected texels are star-shaped around the changed curves, and we can find them by flooding
+   * outwards from the changed curves, sampling as we go.
+   * <p>
+   * Clashes are then resolved for the affected texels, their neighbors, and any texel downstream of them whose fix
+   * depends on theirs, via {@link Clashes}.  Every other texel has the same sampled distances and fix as before, so the
+   * result is identical to a full regeneration.
+   */
+  private DistanceField update(FieldCurve[] curves, Box2[] changed) {
+    if (encoding != Encoding.FLOAT32) {
+      throw new IllegalStateException("cannot update a field quantized as " + encoding);
+    }
+
+    if (changed.length == 0) {
+      return this;
+    }
+
+    float[] field = new float[width * height * CHANNELS];
+    FloatBuffer texels = floats.duplicate();
+    texels.clear();
+    texels.get(field);
+
+    int w = width, h = height;
+    CurveGrid.Search search = new CurveGrid(curves, fieldBounds).search();
+    Vec2 pixelSize = fieldBounds.size().div(vec(w + 1, h + 1));
+
+    // we can't sample exactly along the line towards the changed curves, so allow for texel centers being slightly off
+    double slack = 2 * pixelSize.length();
+
+    Clashes clashes = new Clashes(search, fieldBounds, w, h, vec(0, 0));
+    boolean[] queued = new boolean[w * h];
+    int[] queue = new int[w * h];
+    int head = 0, tail = 0;
+
+    for (Box2 b : changed) {
+      Box2 seed = b.expand(slack);
+      int x0 = max(0, (int) ceil(((seed.lx - fieldBounds.lx) / pixelSize.x) - 0.5));
+      int x1 = min(w - 1, (int) floor(((seed.ux - fieldBounds.lx) / pixelSize.x) - 0.5));
+      int y0 = max(0, (int) ceil(((seed.ly - fieldBounds.ly) / pixelSize.y) - 0.5));
+      int y1 = min(h - 1, (int) floor(((seed.uy - fieldBounds.ly) / pixelSize.y) - 0.5));
+      for (int y = y0; y <= y1; y++) {
+        for (int x = x0; x <= x1; x++) {
+          int texel = (y * w) + x;
+          if (!queued[texel]) {
+            queued[texel] = true;
+            queue[tail++] = texel;
+          }
+        }
+      }
+    }
+
+    while (head < tail) {
+      int texel = queue[head++];
+      int x = texel % w, y = texel / w;
+      Vec2 p = center(fieldBounds, w, h, x, y);
+      clashes.sample(texel);
+      double reach = max(reach(search.r), max(reach(search.g), reach(search.b)));
+      double distance = Double.POSITIVE_INFINITY;
+      for (Box2 b : changed) {
+        distance = min(distance, sqrt(b.distanceSquared(p)));
+      }
+
+      if (distance - reach > slack) {
+        continue;
+      }
+
+      clashes.affected(texel);
+      for (int ny = max(0, y - 1); ny <= min(h - 1, y + 1); ny++) {
+        for (int nx = max(0, x - 1); nx <= min(w - 1, x + 1); nx++) {
+          int neighbor = (ny * w) + nx;
+          if (!queued[neighbor]) {
+            queued[neighbor] = true;
+            queue[tail++] = neighbor;
+          }
+        }
+      }
+    }
+
+    if (!clashes.resolve(field)) {
+      return this;
+    }
+
+    return new DistanceField(FloatBuffer.wrap(field), Encoding.FLOAT32, 0, w, h, shapeBounds, fieldBounds);
+  }
+
+  // the true distance to the nearest curve in a channel, which may be less than the sampled pseudo-distance
+  private static double reach(SignedDistance d) {
+    return d == null ? Double.POSITIVE_INFINITY : sqrt(d.distSquared);
+  }
+
+  /**
+   * Identifies a curve and its edge color by value, so that curves which are shared by two regions can be matched
+   * even if they aren't the same objects.
+   */
+  private static class CurveKey {
+    private final Class<?> type;
+    private final Vec2[] points;
+    private final byte color;
+
+    CurveKey(FieldCurve c) {
+      this.type = c.curve.getClass();
+      this.color = c.color;
+      if (c.curve instanceof Bezier2.QuadraticBezier2) {
+        Bezier2.QuadraticBezier2 b = (Bezier2.QuadraticBezier2) c.curve;
+        this.points = new Vec2[]{b.p0, b.p1, b.p2};
+      } else if (c.curve instanceof Bezier2.CubicBezier2) {
+        Bezier2.CubicBezier2 b = (Bezier2.CubicBezier2) c.curve;
+        this.points = new Vec2[]{b.p0, b.p1, b.p2, b.p3};
+      } else {
+        this.points = new Vec2[]{c.curve.start(), c.curve.end()};
+      }
+    }
+
+    @Override
+    public int hashCode() {
+      return (31 * Arrays.hashCode(points)) ^ type.hashCode() ^ color;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (obj instanceof CurveKey) {
+        CurveKey k = (CurveKey) obj;
+        return type == k.type && color == k.color && Arrays.equals(points, k.points);
+      }
+      return false;
+    }
+  }
+
+  /**
+   * A uniform grid over the bounds of the curves, where each cell holds the indices of every curve whose bounds overlap
+   * it.
+   * <p>
+   * A search first visits the cells in concentric rings around the sample point, until every channel has a candidate
+   * closer than the nearest unvisited cell.  This gives us an upper bound on the distance of the nearest curve for each
+   * channel, and guarantees we've seen every curve within that distance.  We then visit those curves in their original
+   * order, with the same pruning as a linear scan over every curve.  Curves beyond the bound can never be the nearest,
+   * and can't prevent any closer curve from being considered, so the result is identical to the linear scan.
+   */
+  private static class CurveGrid {
+
+    private final FieldCurve[] curves;
+    private final double lx, ly, cellWidth, cellHeight;
+    private final int cols, rows;
+
+    // the curve indices in cell i are cellCurves[cellOffsets[i]] to cellCurves[cellOffsets[i + 1]]
+    private final int[] cellOffsets, cellCurves;
+
+    CurveGrid(FieldCurve[] curves, Box2 bounds) {
+      this.curves = curves;
+
+      // aim for roughly one curve per cell
+      int n = (int) ceil(sqrt(max(1, curves.length)));
+      double aspect = bounds.width() / max(bounds.height(), Double.MIN_NORMAL);
+      this.cols = max(1, min(n * 4, (int) round(n * sqrt(aspect))));
+      this.rows = max(1, min(n * 4, (int) round(n / sqrt(aspect))));
+      this.lx = bounds.lx;
+      this.ly = bounds.ly;
+      this.cellWidth = max(bounds.width() / cols, Double.MIN_NORMAL);
+      this.cellHeight = max(bounds.height() / rows, Double.MIN_NORMAL);
+
+      int[] counts = new int[(cols * rows) + 1];
+      for (FieldCurve c : curves) {
+        for (int cy = row(c.bounds.ly); cy <= row(c.bounds.uy); cy++) {
+          for (int cx = col(c.bounds.lx); cx <= col(c.bounds.ux); cx++) {
+            counts[(cy * cols) + cx + 1]++;
+          }
+        }
+      }
+
+      for (int i = 1; i < counts.length; i++) {
+        counts[i] += counts[i - 1];
+      }
+      this.cellOffsets = counts.clone();
+
+      this.cellCurves = new int[counts[counts.length - 1]];
+      for (int i = 0; i < curves.length; i++) {
+        Box2 b = curves[i].bounds;
+        for (int cy = row(b.ly); cy <= row(b.uy); cy++) {
+          for (int cx = col(b.lx); cx <= col(b.ux); cx++) {
+            cellCurves[counts[(cy * cols) + cx]++] = i;
+          }
+        }
+      }
+    }
+
+    private int col(double x) {
+      return max(0, min(cols - 1, (int) floor((x - lx) / cellWidth)));
+    }
+
+    private int row(double y) {
+      return max(0, min(rows - 1, (int) floor((y - ly) / cellHeight)));
+    }
+
+    Search search() {
+      return new Search();
+    }
+
+    /**
+     * The mutable state of a search, which is not thread-safe.
+     */
+    class Search {
+      SignedDistance r, g, b;
+
+      // the last sample for which each curve was visited, and its distance if it was calculated
+      private final int[] visited = new int[curves.length];
+      private final int[] calculated = new int[curves.length];
+      private final SignedDistance[] distances = new SignedDistance[curves.length];
+      private final double[] scratch = new double[4];
+      private int sample = 0;
+
+      // the curves visited for the current sample, and the squared distance to their bounds
+      private final int[] candidates = new int[curves.length];
+      private final double[] boundsDistances = new double[curves.length];
+      private int count;
+
+      private double rBound, gBound, bBound;
+
+      void nearest(Vec2 p) {
+        sample++;
+        count = 0;
+        rBound = gBound = bBound = Double.POSITIVE_INFINITY;
+
+        int cx = col(p.x), cy = row(p.y);
+        int maxRing = max(max(cx, cols - 1 - cx), max(cy, rows - 1 - cy));
+        for (int ring = 0; ring <= maxRing; ring++) {
+
+          // every curve we haven't yet seen lies entirely outside the cells we've visited
+          if (ring > 0) {
+            double bound = min(
+              min(p.x - (lx + ((cx - ring + 1) * cellWidth)), (lx + ((cx + ring) * cellWidth)) - p.x),
+              min(p.y - (ly + ((cy - ring + 1) * cellHeight)), (ly + ((cy + ring) * cellHeight)) - p.y));
+            if (bound > 0 && bound * bound > bound()) {
+              break;
+            }
+          }
+
+          for (int y = cy - ring; y <= cy + ring; y++) {
+            if (y < 0 || y >= rows) {
+              continue;
+            }
+
+            // only the first and last rows of the ring are fully within it
+            int step = (y == cy - ring || y == cy + ring) ? 1 : max(1, 2 * ring);
+            for (int x = cx - ring; x <= cx + ring; x += step) {
+              if (x >= 0 && x < cols) {
+                visit((y * cols) + x, p);
+              }
+            }
+          }
+        }
+
+        // replay the linear scan over the candidates within our bound, in their original order
+        double bound = bound();
+        int n = 0;
+        for (int i = 0; i < count; i++) {
+          if (boundsDistances[candidates[i]] <= bound) {
+            candidates[n++] = candidates[i];
+          }
+        }
+        Arrays.sort(candidates, 0, n);
+
+        r = g = b = null;
+        for (int i = 0; i < n; i++) {
+          int idx = candidates[i];
+          FieldCurve c = curves[idx];
+
+          double ds = boundsDistances[idx];
           if (r != null && g != null && b != null && ds >= r.distSquared && ds >= g.distSquared && ds >= b.distSquared) {
             continue;
           }
 
-          SignedDistance d = new SignedDistance(c.curve, p);
+          SignedDistance d = distance(idx, p);
 
           if ((c.color & RED) > 0 && (r == null || r.compareTo(d) > 0)) {
             r = d;
@@ -152,16 +858,92 @@ public class DistanceField {
             b = d;
           }
         }
+      }
+
+      private double bound() {
+        return max(rBound, max(gBound, bBound));
+      }
+
+      private SignedDistance distance(int idx, Vec2 p) {
+        if (calculated[idx] != sample) {
+          calculated[idx] = sample;
+          distances[idx] = new SignedDistance(curves[idx].curve, p, scratch);
+        }
+        return distances[idx];
+      }
 
-        field[x][y][0] = r != null ? (float) r.distance() : 0f;
-        field[x][y][1] = g != null ? (float) g.distance() : 0f;
-        field[x][y][2] = b != null ? (float) b.distance() : 0f;
+      private void visit(int cell, Vec2 p) {
+        for (int i = cellOffsets[cell]; i < cellOffsets[cell + 1]; i++) {
+          int idx = cellCurves[i];
+          if (visited[idx] == sample) {
+            continue;
+          }
+          visited[idx] = sample;
+
+          FieldCurve c = curves[idx];
+          double ds = c.bounds.distanceSquared(p);
+          candidates[count++] = idx;
+          boundsDistances[idx] = ds;
+
+          if (ds > bound()) {
+            continue;
+          }
+
+          double d = distance(idx, p).distSquared;
+          if ((c.color & RED) > 0) {
+            rBound = min(rBound, d);
+          }
+          if ((c.color & GREEN) > 0) {
+            gBound = min(gBound, d);
+          }
+          if ((c.color & BLUE) > 0) {
+            bBound = min(bBound, d);
+          }
+        }
       }
     }
+  }
 
-    fixClashes(field, vec(0, 0));
+  /// parallelism
 
-    return new DistanceField(field, shapeBounds, fieldBounds);
+  private static final int BAND_SIZE = 8;
+
+  private interface Band {
+    void apply(int start, int end);
+  }
+
+  @SuppressWarnings("serial")
+  private static class BandTask extends RecursiveAction {
+    private final int start, end;
+    private final Band band;
+
+    BandTask(int start, int end, Band band) {
+      this.start = start;
+      this.end = end;
+      this.band = band;
+    }
+
+    @Override
+    protected void compute() {
+      if (end - start <= BAND_SIZE) {
+        band.apply(start, end);
+      } else {
+        int mid = (start + end) >>> 1;
+        invokeAll(new BandTask(start, mid, band), new BandTask(mid, end, band));
+      }
+    }
+  }
+
+  /**
+   * Invokes {@code band} over disjoint ranges which cover [0, size), either on {@code pool} or, if it's null, as a
+   * single range on the calling thread.
+   */
+  private static void forEachBand(int size, ForkJoinPool pool, Band band) {
+    if (pool == null) {
+      band.apply(0, size);
+    } else {
+      pool.invoke(new BandTask(0, size, band));
+    }
   }
 
   ////
@@ -181,26 +963,41 @@ public class DistanceField {
     public boolean inside;
 
     public SignedDistance(Curve2 curve, Vec2 origin) {
+      this(curve, origin, new double[4]);
+    }
+
+    /**
+     * @param scratch an array of at least four elements, which is overwritten
+     */
+    public SignedDistance(Curve2 curve, Vec2 origin, double[] scratch) {
 
-      double param = curve.nearestPoint(origin);
+      double param = curve.nearestPoint(origin.x, origin.y, scratch);
       double clampedParam = clamp(0, param, 1);
-      Vec2 pos = curve.position(clampedParam);
-      Vec2 dir = curve.direction(clampedParam).norm();
-      Vec2 po = origin.sub(pos);
 
-      distSquared = po.lengthSquared();
-      inside = cross(dir, po) > 0;
+      // the normalized direction, and the vector from the nearest point to the origin
+      double dx = scratch[2], dy = scratch[3];
+      double l = (dx * dx) + (dy * dy);
+      if (l != 1.0) {
+        double k = 1.0 / sqrt(l);
+        dx *= k;
+        dy *= k;
+      }
+      double pox = origin.x - scratch[0], poy = origin.y - scratch[1];
+
+      distSquared = (pox * pox) + (poy * poy);
+      inside = ((dx * poy) - (dy * pox)) > 0;
 
       if (param == clampedParam) {
         dot = 0;
         pseudoDistSquared = -1;
       } else {
         // calculate pseudo-distance
-        double ts = dot(po, dir);
-        dot = abs(dot(dir, po.norm()));
+        double ts = (pox * dx) + (poy * dy);
+        double k = distSquared == 1.0 ? 1.0 : 1.0 / sqrt(distSquared);
+        dot = abs((dx * (pox * k)) + (dy * (poy * k)));
 
         if (signum(ts) == signum(param)) {
-          double pseudoDistance = cross(po, dir);
+          double pseudoDistance = (pox * dy) - (poy * dx);
           pseudoDistSquared = pseudoDistance * pseudoDistance;
         } else {
           pseudoDistSquared = -1;
@@ -309,40 +1106,40 @@ public class DistanceField {
     return max(min(a, b), min(max(a, b), c));
   }
 
-  private static boolean clash(float[] a, float[] b, double threshold) {
+  private static boolean clash(float[] field, int a, int b, double threshold) {
     // Only consider pair where both are on the inside or both are on the outside
-    boolean aIn = (a[0] > 0 ? 1 : 0) + (a[1] > 0 ? 1 : 0) + (a[2] > 0 ? 1 : 0) >= 2;
-    boolean bIn = (b[0] > 0 ? 1 : 0) + (b[1] > 0 ? 1 : 0) + (b[2] > 0 ? 1 : 0) >= 2;
+    boolean aIn = (field[a + 0] > 0 ? 1 : 0) + (field[a + 1] > 0 ? 1 : 0) + (field[a + 2] > 0 ? 1 : 0) >= 2;
+    boolean bIn = (field[b + 0] > 0 ? 1 : 0) + (field[b + 1] > 0 ? 1 : 0) + (field[b + 2] > 0 ? 1 : 0) >= 2;
     if (aIn != bIn) return false;
     // If the change is 0 <-> 1 or 2 <-> 3 channels and not 1 <-> 1 or 2 <-> 2, it is not a clash
-    if ((a[0] > 0 && a[1] > 0 && a[2] > 0) || (a[0] < 0 && a[1] < 0 && a[2] < 0)
-      || (b[0] > 0 && b[1] > 0 && b[2] > 0) || (b[0] < 0 && b[1] < 0 && b[2] < 0))
+    if ((field[a + 0] > 0 && field[a + 1] > 0 && field[a + 2] > 0) || (field[a + 0] < 0 && field[a + 1] < 0 && field[a + 2] < 0)
+      || (field[b + 0] > 0 && field[b + 1] > 0 && field[b + 2] > 0) || (field[b + 0] < 0 && field[b + 1] < 0 && field[b + 2] < 0))
       return false;
     // Find which color is which: _a, _b = the changing channels, _c = the remaining one
     float aa, ab, ba, bb, ac, bc;
-    if ((a[0] > 0) != (b[0] > 0) && (a[0] < 0) != (b[0] < 0)) {
-      aa = a[0];
-      ba = b[0];
-      if ((a[1] > 0) != (b[1] > 0) && (a[1] < 0) != (b[1] < 0)) {
-        ab = a[1];
-        bb = b[1];
-        ac = a[2];
-        bc = b[2];
-      } else if ((a[2] > 0) != (b[2] > 0) && (a[2] < 0) != (b[2] < 0)) {
-        ab = a[2];
-        bb = b[2];
-        ac = a[1];
-        bc = b[1];
+    if ((field[a + 0] > 0) != (field[b + 0] > 0) && (field[a + 0] < 0) != (field[b + 0] < 0)) {
+      aa = field[a + 0];
+      ba = field[b + 0];
+      if ((field[a + 1] > 0) != (field[b + 1] > 0) && (field[a + 1] < 0) != (field[b + 1] < 0)) {
+        ab = field[a + 1];
+        bb = field[b + 1];
+        ac = field[a + 2];
+        bc = field[b + 2];
+      } else if ((field[a + 2] > 0) != (field[b + 2] > 0) && (field[a + 2] < 0) != (field[b + 2] < 0)) {
+        ab = field[a + 2];
+        bb = field[b + 2];
+        ac = field[a + 1];
+        bc = field[b + 1];
       } else
         return false; // this should never happen
-    } else if ((a[1] > 0) != (b[1] > 0) && (a[1] < 0) != (b[1] < 0)
-      && (a[2] > 0) != (b[2] > 0) && (a[2] < 0) != (b[2] < 0)) {
-      aa = a[1];
-      ba = b[1];
-      ab = a[2];
-      bb = b[2];
-      ac = a[0];
-      bc = b[0];
+    } else if ((field[a + 1] > 0) != (field[b + 1] > 0) && (field[a + 1] < 0) != (field[b + 1] < 0)
+      && (field[a + 2] > 0) != (field[b + 2] > 0) && (field[a + 2] < 0) != (field[b + 2] < 0)) {
+      aa = field[a + 1];
+      ba = field[b + 1];
+      ab = field[a + 2];
+      bb = field[b + 2];
+      ac = field[a + 0];
+      bc = field[b + 0];
     } else
       return false;
     // Find if the channels are in fact discontinuous
@@ -352,23 +1149,196 @@ public class DistanceField {
 
   }
 
+  private static final byte CLASH_LEFT = 1, CLASH_RIGHT = 2, CLASH_UP = 4, CLASH_DOWN = 8;
+
   /**
    * If there's potential for a clash between two texels which are both inside, just set all channels to the same value.
+   * <p>
+   * Texels are visited in column-major order, and each fix is visible to the texels after it.  Since a texel whose
+   * channels are all equal can never clash, a clash with a preceding neighbor only counts if that neighbor wasn't
+   * itself fixed.  We exploit this by first finding every clash against the original values, which is the expensive
+   * part and can be done in parallel, and then resolving the order dependence in a cheap sequential pass over the
+   * resulting flags.
    */
-  private static void fixClashes(float[][][] field, Vec2 threshold) {
-    int width = field.length;
-    int height = field[0].length;
+  private static void fixClashes(float[] field, int width, int height, Vec2 threshold, ForkJoinPool pool) {
+    byte[] clashes = new byte[width * height];
+    forEachBand(height, pool, (start, end) -> {
+      for (int j = start; j < end; j++) {
+        for (int i = 0; i < width; i++) {
+          int texel = (j * width) + i;
+          int idx = texel * CHANNELS;
+          clashes[texel] = (byte) (
+            (i > 0 && clash(field, idx, idx - CHANNELS, threshold.x) ? CLASH_LEFT : 0)
+              | (i < (width - 1) && clash(field, idx, idx + CHANNELS, threshold.x) ? CLASH_RIGHT : 0)
+              | (j > 0 && clash(field, idx, idx - (width * CHANNELS), threshold.y) ? CLASH_UP : 0)
+              | (j < (height - 1) && clash(field, idx, idx + (width * CHANNELS), threshold.y) ? CLASH_DOWN : 0));
+        }
+      }
+    });
+
+    boolean[] fixed = new boolean[width * height];
     for (int i = 0; i < width; i++) {
       for (int j = 0; j < height; j++) {
-        float[] color = field[i][j];
-        if ((i > 0 && clash(color, field[i - 1][j], threshold.x))
-          || (i < (width - 1) && clash(color, field[i + 1][j], threshold.x))
-          || (j > 0 && clash(color, field[i][j - 1], threshold.y))
-          || (j < (height - 1) && clash(color, field[i][j + 1], threshold.y))) {
-          float median = (float) median(color[0], color[1], color[2]);
-          color[0] = color[1] = color[2] = median;
+        int texel = (j * width) + i;
+        int mask = clashes[texel];
+        fixed[texel] = (mask & (CLASH_RIGHT | CLASH_DOWN)) != 0
+          || ((mask & CLASH_LEFT) != 0 && !fixed[texel - 1])
+          || ((mask & CLASH_UP) != 0 && !fixed[texel - width]);
+      }
+    }
+
+    forEachBand(height, pool, (start, end) -> {
+      for (int texel = start * width; texel < end * width; texel++) {
+        if (fixed[texel]) {
+          int idx = texel * CHANNELS;
+          float median = (float) median(field[idx], field[idx + 1], field[idx + 2]);
+          field[idx] = field[idx + 1] = field[idx + 2] = median;
+        }
+      }
+    });
+  }
+
+  /**
+   * Computes the same clash flags and fixes as {@link #fixClashes(float[], int, int, Vec2, ForkJoinPool)} over the whole
+   * field, but only for the texels which need them, sampling distances on demand.
+   * <p>
+   * A texel's fix depends on its left or upper neighbor's if it clashes with that neighbor without also being flagged
+   * on its own account, and these dependencies can chain arbitrarily far to the right and downwards.  So once the flags
+   * of the affected texels and their neighbors have changed, we follow these chains to find every texel whose fix may
+   * have changed, rather than assuming they end within some fixed margin.
+   */
+  private static class Clashes {
+
+    private static final byte UNKNOWN = -1, UNFIXED = 0, FIXED = 1;
+
+    private final CurveGrid.Search search;
+    private final Box2 fieldBounds;
+    private final int w, h;
+    private final Vec2 threshold;
+
+    // the unfixed distances, which are only valid where sampled is true
+    private final float[] samples;
+    private final boolean[] sampled;
+    private final byte[] flags, fixed;
+
+    // the texels which may differ from the previous field
+    private final boolean[] dirty;
+    private final int[] queue;
+    private int tail = 0;
+
+    Clashes(CurveGrid.Search search, Box2 fieldBounds, int w, int h, Vec2 threshold) {
+      this.search = search;
+      this.fieldBounds = fieldBounds;
+      this.w = w;
+      this.h = h;
+      this.threshold = threshold;
+      this.samples = new float[w * h * CHANNELS];
+      this.sampled = new boolean[w * h];
+      this.flags = new byte[w * h];
+      this.fixed = new byte[w * h];
+      this.dirty = new boolean[w * h];
+      this.queue = new int[w * h];
+      Arrays.fill(flags, UNKNOWN);
+      Arrays.fill(fixed, UNKNOWN);
+    }
+
+    /**
+     * Samples the texel, leaving the nearest curves in {@code search}.
+     */
+    void sample(int texel) {
+      DistanceField.sample(search, center(fieldBounds, w, h, texel % w, texel / w), samples, texel * CHANNELS);
+      sampled[texel] = true;
+    }
+
+    private int index(int texel) {
+      if (!sampled[texel]) {
+        sample(texel);
+      }
+      return texel * CHANNELS;
+    }
+
+    /**
+     * Marks a texel whose distances have changed, which also changes the clash flags of its neighbors.
+     */
+    void affected(int texel) {
+      int x = texel % w, y = texel / w;
+      mark(texel);
+      if (x > 0) mark(texel - 1);
+      if (x < w - 1) mark(texel + 1);
+      if (y > 0) mark(texel - w);
+      if (y < h - 1) mark(texel + w);
+    }
+
+    private void mark(int texel) {
+      if (!dirty[texel]) {
+        dirty[texel] = true;
+        queue[tail++] = texel;
+      }
+    }
+
+    private int flags(int texel) {
+      if (flags[texel] == UNKNOWN) {
+        int i = texel % w, j = texel / w;
+        int idx = index(texel);
+        flags[texel] = (byte) (
+          (i > 0 && clash(samples, idx, index(texel - 1), threshold.x) ? CLASH_LEFT : 0)
+            | (i < (w - 1) && clash(samples, idx, index(texel + 1), threshold.x) ? CLASH_RIGHT : 0)
+            | (j > 0 && clash(samples, idx, index(texel - w), threshold.y) ? CLASH_UP : 0)
+            | (j < (h - 1) && clash(samples, idx, index(texel + w), threshold.y) ? CLASH_DOWN : 0));
+      }
+      return flags[texel];
+    }
+
+    // each dependency is on a texel to the left or above, so the recursion is no deeper than w + h
+    private boolean fixed(int texel) {
+      if (fixed[texel] == UNKNOWN) {
+        int mask = flags(texel);
+        boolean result = (mask & (CLASH_RIGHT | CLASH_DOWN)) != 0
+          || ((mask & CLASH_LEFT) != 0 && !fixed(texel - 1))
+          || ((mask & CLASH_UP) != 0 && !fixed(texel - w));
+        fixed[texel] = result ? FIXED : UNFIXED;
+      }
+      return fixed[texel] == FIXED;
+    }
+
+    /**
+     * Writes the fixed distances of every texel which may have changed into {@code field}.
+     *
+     * @return false if no texel was affected, and {@code field} is unchanged
+     */
+    boolean resolve(float[] field) {
+      if (tail == 0) {
+        return false;
+      }
+
+      for (int head = 0; head < tail; head++) {
+        int texel = queue[head];
+        int x = texel % w, y = texel / w;
+        if (x < w - 1) {
+          int mask = flags(texel + 1);
+          if ((mask & CLASH_LEFT) != 0 && (mask & (CLASH_RIGHT | CLASH_DOWN)) == 0) {
+            mark(texel + 1);
+          }
+        }
+        if (y < h - 1) {
+          int mask = flags(texel + w);
+          if ((mask & CLASH_UP) != 0 && (mask & (CLASH_RIGHT | CLASH_DOWN)) == 0) {
+            mark(texel + w);
+          }
+        }
+      }
+
+      for (int i = 0; i < tail; i++) {
+        int texel = queue[i];
+        int idx = index(texel);
+        if (fixed(texel)) {
+          float median = (float) median(samples[idx], samples[idx + 1], samples[idx + 2]);
+          field[idx] = field[idx + 1] = field[idx + 2] = median;
+        } else {
+          System.arraycopy(samples, idx, field, idx, CHANNELS);
         }
       }
+      return true;
     }
   }
 
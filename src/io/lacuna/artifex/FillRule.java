@@ -0,0 +1,38 @@
+package io.lacuna.artifex;
+
+/**
+ * Determines which points are inside a region whose rings may overlap or intersect themselves.  Under either rule, the
+ * regions returned by boolean operations are the same, since their rings don't overlap, and each hole is a clockwise
+ * ring nested within a counter-clockwise ring.
+ */
+public enum FillRule {
+
+  /**
+   * A point is inside if a ray cast from it crosses the boundaries of all the region's rings an odd number of times,
+   * regardless of their orientation.
+   */
+  EVEN_ODD {
+    @Override
+    public boolean isInside(int winding) {
+      return (winding & 1) == 1;
+    }
+  },
+
+  /**
+   * A point is inside if the rings' combined winding number around it is non-zero, as in SVG paths and TrueType fonts.
+   * Counter-clockwise rings wind positively, and clockwise rings negatively.
+   */
+  NON_ZERO {
+    @Override
+    public boolean isInside(int winding) {
+      return winding != 0;
+    }
+  };
+
+  /**
+   * @param winding the combined winding number of the region's rings around a point, which has the same parity as the
+   *                number of times a ray cast from the point crosses them
+   * @return whether the point is inside the region
+   */
+  public abstract boolean isInside(int winding);
+}
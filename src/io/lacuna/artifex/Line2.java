@@ -1,5 +1,9 @@
 package io.lacuna.artifex;
 
+import io.lacuna.artifex.utils.Vectors;
+
+import java.util.Arrays;
+
 import static io.lacuna.artifex.Box.box;
 import static io.lacuna.artifex.Vec.vec;
 
@@ -8,7 +12,7 @@ import static io.lacuna.artifex.Vec.vec;
  */
 public class Line2 implements Curve2 {
 
-  private final double ax, ay, bx, by;
+  public final double ax, ay, bx, by;
 
   private Line2(double ax, double ay, double bx, double by) {
     this.ax = ax;
@@ -39,7 +43,7 @@ public class Line2 implements Curve2 {
 
   @Override
   public double signedArea() {
-    return ((ax * by) - (bx * ay)) / 2;
+    return Vectors.lineArea(ax, ay, bx, by);
   }
 
   @Override
@@ -73,6 +77,44 @@ public class Line2 implements Curve2 {
     return new Vec2(bx - ax, by - ay);
   }
 
+  @Override
+  public void positions(double[] ts, double[] xs, double[] ys) {
+    if (xs.length < ts.length || ys.length < ts.length) {
+      throw new IllegalArgumentException("output arrays must be at least as long as the input");
+    }
+    double dx = bx - ax, dy = by - ay;
+    for (int i = 0; i < ts.length; i++) {
+      double t = ts[i];
+      xs[i] = t == 1 ? bx : ax + dx * t;
+      ys[i] = t == 1 ? by : ay + dy * t;
+    }
+  }
+
+  @Override
+  public void directions(double[] ts, double[] xs, double[] ys) {
+    if (xs.length < ts.length || ys.length < ts.length) {
+      throw new IllegalArgumentException("output arrays must be at least as long as the input");
+    }
+    Arrays.fill(xs, 0, ts.length, bx - ax);
+    Arrays.fill(ys, 0, ts.length, by - ay);
+  }
+
+  @Override
+  public double[] distances(double[] xs, double[] ys, double[] out) {
+    if (ys.length != xs.length || out.length < xs.length) {
+      throw new IllegalArgumentException("xs, ys, and out must have the same length");
+    }
+    double dx = bx - ax, dy = by - ay;
+    double k = 1 / ((dx * dx) + (dy * dy));
+    for (int i = 0; i < xs.length; i++) {
+      double px = xs[i] - ax, py = ys[i] - ay;
+      double t = Math.max(0, Math.min(1, ((px * dx) + (py * dy)) * k));
+      double ex = px - (dx * t), ey = py - (dy * t);
+      out[i] = Math.sqrt((ex * ex) + (ey * ey));
+    }
+    return out;
+  }
+
   @Override
   public Curve2 range(double tMin, double tMax) {
     return Line2.line(position(tMin), position(tMax));
@@ -13,13 +13,41 @@ import static io.lacuna.artifex.Vec.vec;
  */
 public class Matrix3 {
 
+  /**
+   * An affine transform expressed as a sequence of simpler transforms, which when applied in order are a scale, a
+   * horizontal shear, a rotation, and a translation.
+   */
+  public static class Decomposition {
+    public final Vec2 translation, scale;
+    public final double rotation, shear;
+
+    Decomposition(Vec2 translation, double rotation, double shear, Vec2 scale) {
+      this.translation = translation;
+      this.rotation = rotation;
+      this.shear = shear;
+      this.scale = scale;
+    }
+
+    /**
+     * @return the matrix {@code translate(translation) * rotate(rotation) * shear(shear, 0) * scale(scale)}
+     */
+    public Matrix3 matrix() {
+      return mul(translate(translation), rotate(rotation), shear(shear, 0), scale(scale));
+    }
+
+    @Override
+    public String toString() {
+      return "translation=" + translation + ", rotation=" + rotation + ", shear=" + shear + ", scale=" + scale;
+    }
+  }
+
   public static final Matrix3 IDENTITY = new Matrix3(1, 0, 0, 0, 1, 0, 0, 0, 1);
 
   private final double[] elements;
 
-  private Matrix3(double m00, double m01, double m02,
-                  double m10, double m11, double m12,
-                  double m20, double m21, double m22) {
+  Matrix3(double m00, double m01, double m02,
+          double m10, double m11, double m12,
+          double m20, double m21, double m22) {
     elements = new double[]{m00, m01, m02, m10, m11, m12, m20, m21, m22};
   }
 
@@ -68,6 +96,13 @@ public class Matrix3 {
     return new Matrix3(c, -s, 0, s, c, 0, 0, 0, 1);
   }
 
+  /**
+   * @return a matrix which offsets x by {@code x} times y, and y by {@code y} times x
+   */
+  public static Matrix3 shear(double x, double y) {
+    return new Matrix3(1, x, 0, y, 1, 0, 0, 0, 1);
+  }
+
   public static Matrix3 mul(Matrix3... matrices) {
     Matrix3 m = matrices[0];
     for (int i = 1; i < matrices.length; i++) {
@@ -135,6 +170,90 @@ public class Matrix3 {
       elements[2], elements[5], elements[8]);
   }
 
+  /**
+   * @return true if the bottom row is {@code [0, 0, 1]}, and so the matrix can be represented by an {@link Affine2}
+   */
+  public boolean isAffine() {
+    return elements[6] == 0 && elements[7] == 0 && elements[8] == 1;
+  }
+
+  /**
+   * @return the upper two rows of the matrix, which are the only ones used by {@link #transform(Vec2)}
+   */
+  public Affine2 affine() {
+    return new Affine2(
+      elements[0], elements[1], elements[2],
+      elements[3], elements[4], elements[5]);
+  }
+
+  public double determinant() {
+    double[] e = elements;
+    return (e[0] * ((e[4] * e[8]) - (e[5] * e[7])))
+      - (e[1] * ((e[3] * e[8]) - (e[5] * e[6])))
+      + (e[2] * ((e[3] * e[7]) - (e[4] * e[6])));
+  }
+
+  /**
+   * @return the matrix which undoes this matrix, such that {@code m.mul(m.inverse())} is the identity
+   * @throws IllegalStateException if the matrix is singular
+   */
+  public Matrix3 inverse() {
+    if (isAffine()) {
+      return affine().inverse().matrix3();
+    }
+
+    double[] e = elements;
+    double
+      c00 = (e[4] * e[8]) - (e[5] * e[7]),
+      c01 = (e[5] * e[6]) - (e[3] * e[8]),
+      c02 = (e[3] * e[7]) - (e[4] * e[6]);
+
+    double det = (e[0] * c00) + (e[1] * c01) + (e[2] * c02);
+    if (det == 0 || !Double.isFinite(det)) {
+      throw new IllegalStateException("matrix is not invertible");
+    }
+
+    return new Matrix3(
+      c00 / det,
+      ((e[2] * e[7]) - (e[1] * e[8])) / det,
+      ((e[1] * e[5]) - (e[2] * e[4])) / det,
+      c01 / det,
+      ((e[0] * e[8]) - (e[2] * e[6])) / det,
+      ((e[2] * e[3]) - (e[0] * e[5])) / det,
+      c02 / det,
+      ((e[1] * e[6]) - (e[0] * e[7])) / det,
+      ((e[0] * e[4]) - (e[1] * e[3])) / det);
+  }
+
+  /**
+   * Decomposes an affine matrix into a scale, shear, rotation, and translation.  If the matrix is a reflection, this is
+   * represented by a negative vertical scale.
+   *
+   * @throws IllegalStateException if the matrix isn't affine, or is singular
+   */
+  public Decomposition decompose() {
+    if (!isAffine()) {
+      throw new IllegalStateException("only affine matrices can be decomposed");
+    }
+
+    double[] e = elements;
+    double det = (e[0] * e[4]) - (e[1] * e[3]);
+    if (det == 0 || !Double.isFinite(det)) {
+      throw new IllegalStateException("matrix is singular");
+    }
+
+    // orthogonalize the columns, such that the upper 2x2 matrix is a rotation times [[sx, k], [0, sy]]
+    double sx = Math.hypot(e[0], e[3]);
+    double k = ((e[0] * e[1]) + (e[3] * e[4])) / sx;
+    double sy = det / sx;
+
+    return new Decomposition(
+      vec(e[2], e[5]),
+      Math.atan2(e[3], e[0]),
+      k / sy,
+      vec(sx, sy));
+  }
+
   public Vec2 transform(Vec2 v) {
     return new Vec2(
       (v.x * elements[0]) + (v.y * elements[1]) + elements[2],
@@ -6,6 +6,7 @@ import java.util.Arrays;
 import java.util.NoSuchElementException;
 import java.util.PrimitiveIterator;
 
+import static io.lacuna.artifex.Vec.dot;
 import static io.lacuna.artifex.Vec.vec;
 import static java.lang.Math.cos;
 import static java.lang.Math.sin;
@@ -14,6 +15,35 @@ import static java.lang.Math.sin;
  *
  */
 public class Matrix4 {
+
+  /**
+   * An affine transform expressed as a sequence of simpler transforms, which when applied in order are a scale, a shear,
+   * a rotation, and a translation.
+   */
+  public static class Decomposition {
+    public final Vec3 translation, shear, scale;
+    public final Matrix4 rotation;
+
+    Decomposition(Vec3 translation, Matrix4 rotation, Vec3 shear, Vec3 scale) {
+      this.translation = translation;
+      this.rotation = rotation;
+      this.shear = shear;
+      this.scale = scale;
+    }
+
+    /**
+     * @return the matrix {@code translate(translation) * rotation * shear(shear.x, shear.y, shear.z) * scale(scale)}
+     */
+    public Matrix4 matrix() {
+      return mul(translate(translation), rotation, shear(shear.x, shear.y, shear.z), scale(scale));
+    }
+
+    @Override
+    public String toString() {
+      return "translation=" + translation + ", rotation=" + rotation + ", shear=" + shear + ", scale=" + scale;
+    }
+  }
+
   public static final Matrix4 IDENTITY = new Matrix4(
     1, 0, 0, 0,
     0, 1, 0, 0,
@@ -107,6 +137,17 @@ public class Matrix4 {
       0, 0, 0, 1);
   }
 
+  /**
+   * @return a matrix which offsets x by {@code xy} times y and {@code xz} times z, and y by {@code yz} times z
+   */
+  public static Matrix4 shear(double xy, double xz, double yz) {
+    return new Matrix4(
+      1, xy, xz, 0,
+      0, 1, yz, 0,
+      0, 0, 1, 0,
+      0, 0, 0, 1);
+  }
+
   public static Matrix4 mul(Matrix4... matrices) {
     Matrix4 m = matrices[0];
     for (int i = 1; i < matrices.length; i++) {
@@ -167,6 +208,128 @@ public class Matrix4 {
       elements[3], elements[7], elements[11], elements[15]);
   }
 
+  /**
+   * @return true if the bottom row is {@code [0, 0, 0, 1]}
+   */
+  public boolean isAffine() {
+    return elements[12] == 0 && elements[13] == 0 && elements[14] == 0 && elements[15] == 1;
+  }
+
+  public double determinant() {
+    double[] e = elements;
+    double
+      s0 = (e[0] * e[5]) - (e[4] * e[1]),
+      s1 = (e[0] * e[6]) - (e[4] * e[2]),
+      s2 = (e[0] * e[7]) - (e[4] * e[3]),
+      s3 = (e[1] * e[6]) - (e[5] * e[2]),
+      s4 = (e[1] * e[7]) - (e[5] * e[3]),
+      s5 = (e[2] * e[7]) - (e[6] * e[3]),
+      c0 = (e[8] * e[13]) - (e[12] * e[9]),
+      c1 = (e[8] * e[14]) - (e[12] * e[10]),
+      c2 = (e[8] * e[15]) - (e[12] * e[11]),
+      c3 = (e[9] * e[14]) - (e[13] * e[10]),
+      c4 = (e[9] * e[15]) - (e[13] * e[11]),
+      c5 = (e[10] * e[15]) - (e[14] * e[11]);
+
+    return (s0 * c5) - (s1 * c4) + (s2 * c3) + (s3 * c2) - (s4 * c1) + (s5 * c0);
+  }
+
+  /**
+   * @return the matrix which undoes this matrix, such that {@code m.mul(m.inverse())} is the identity
+   * @throws IllegalStateException if the matrix is singular
+   */
+  public Matrix4 inverse() {
+    double[] e = elements;
+
+    // the 2x2 determinants of the upper two rows, and the lower two rows
+    double
+      s0 = (e[0] * e[5]) - (e[4] * e[1]),
+      s1 = (e[0] * e[6]) - (e[4] * e[2]),
+      s2 = (e[0] * e[7]) - (e[4] * e[3]),
+      s3 = (e[1] * e[6]) - (e[5] * e[2]),
+      s4 = (e[1] * e[7]) - (e[5] * e[3]),
+      s5 = (e[2] * e[7]) - (e[6] * e[3]),
+      c0 = (e[8] * e[13]) - (e[12] * e[9]),
+      c1 = (e[8] * e[14]) - (e[12] * e[10]),
+      c2 = (e[8] * e[15]) - (e[12] * e[11]),
+      c3 = (e[9] * e[14]) - (e[13] * e[10]),
+      c4 = (e[9] * e[15]) - (e[13] * e[11]),
+      c5 = (e[10] * e[15]) - (e[14] * e[11]);
+
+    double det = (s0 * c5) - (s1 * c4) + (s2 * c3) + (s3 * c2) - (s4 * c1) + (s5 * c0);
+    if (det == 0 || !Double.isFinite(det)) {
+      throw new IllegalStateException("matrix is not invertible");
+    }
+
+    return new Matrix4(
+      ((e[5] * c5) - (e[6] * c4) + (e[7] * c3)) / det,
+      ((-e[1] * c5) + (e[2] * c4) - (e[3] * c3)) / det,
+      ((e[13] * s5) - (e[14] * s4) + (e[15] * s3)) / det,
+      ((-e[9] * s5) + (e[10] * s4) - (e[11] * s3)) / det,
+
+      ((-e[4] * c5) + (e[6] * c2) - (e[7] * c1)) / det,
+      ((e[0] * c5) - (e[2] * c2) + (e[3] * c1)) / det,
+      ((-e[12] * s5) + (e[14] * s2) - (e[15] * s1)) / det,
+      ((e[8] * s5) - (e[10] * s2) + (e[11] * s1)) / det,
+
+      ((e[4] * c4) - (e[5] * c2) + (e[7] * c0)) / det,
+      ((-e[0] * c4) + (e[1] * c2) - (e[3] * c0)) / det,
+      ((e[12] * s4) - (e[13] * s2) + (e[15] * s0)) / det,
+      ((-e[8] * s4) + (e[9] * s2) - (e[11] * s0)) / det,
+
+      ((-e[4] * c3) + (e[5] * c1) - (e[6] * c0)) / det,
+      ((e[0] * c3) - (e[1] * c1) + (e[2] * c0)) / det,
+      ((-e[12] * s3) + (e[13] * s1) - (e[14] * s0)) / det,
+      ((e[8] * s3) - (e[9] * s1) + (e[10] * s0)) / det);
+  }
+
+  /**
+   * Decomposes an affine matrix into a scale, shear, rotation, and translation.  If the matrix is a reflection, this is
+   * represented by a negative scale along the z-axis, so that the rotation is always proper.
+   *
+   * @throws IllegalStateException if the matrix isn't affine, or is singular
+   */
+  public Decomposition decompose() {
+    if (!isAffine()) {
+      throw new IllegalStateException("only affine matrices can be decomposed");
+    }
+
+    double[] e = elements;
+    Vec3 a0 = vec(e[0], e[4], e[8]), a1 = vec(e[1], e[5], e[9]), a2 = vec(e[2], e[6], e[10]);
+
+    // since the bottom row is [0, 0, 0, 1], this is the determinant of the upper 3x3 matrix
+    double det = determinant();
+    if (det == 0 || !Double.isFinite(det)) {
+      throw new IllegalStateException("matrix is singular");
+    }
+
+    // Gram-Schmidt orthogonalization of the columns, such that the upper 3x3 matrix is the rotation [q0 q1 q2] times an
+    // upper triangular matrix, whose diagonal is the scale
+    double sx = a0.length();
+    Vec3 q0 = a0.div(sx);
+
+    double k01 = dot(q0, a1);
+    Vec3 b1 = a1.sub(q0.mul(k01));
+    double sy = b1.length();
+    Vec3 q1 = b1.div(sy);
+
+    double k02 = dot(q0, a2), k12 = dot(q1, a2);
+    Vec3 b2 = a2.sub(q0.mul(k02)).sub(q1.mul(k12));
+    double sz = b2.length();
+    Vec3 q2 = b2.div(sz);
+
+    if (det < 0) {
+      sz = -sz;
+      q2 = q2.negate();
+    }
+
+    return new Decomposition(
+      vec(e[3], e[7], e[11]),
+      from(q0, q1, q2),
+      vec(k01 / sy, k02 / sz, k12 / sz),
+      vec(sx, sy, sz));
+  }
+
   public Vec3 transform(Vec3 v) {
     return new Vec3(
       (v.x * elements[0]) + (v.y * elements[1]) + (v.z * elements[2]) + elements[3],
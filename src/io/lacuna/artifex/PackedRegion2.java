@@ -0,0 +1,621 @@
+package io.lacuna.artifex;
+
+import io.lacuna.artifex.Bezier2.CubicBezier2;
+import io.lacuna.artifex.Bezier2.QuadraticBezier2;
+import io.lacuna.artifex.Ring2.Result;
+import io.lacuna.artifex.utils.BandIndex;
+import io.lacuna.artifex.utils.Intersections;
+import io.lacuna.artifex.utils.Vectors;
+import io.lacuna.bifurcan.LinearList;
+
+import java.util.Arrays;
+
+import static io.lacuna.artifex.Vec.vec;
+import static io.lacuna.artifex.utils.Intersections.*;
+
+/**
+ * A compact, immutable representation of a {@link Region2}, which stores every curve's control points in a single
+ * array, rather than as individual {@link Curve2} and {@link Vec2} objects.  Bounds, area, point tests, and transforms
+ * operate on the packed arrays directly, and curves are only materialized on demand.
+ * <p>
+ * As in {@link Ring2}, each curve is monotonic along both axes, and each curve ends where the next in its ring begins,
+ * so only the start and interior control points of each curve are stored.
+ */
+public class PackedRegion2 {
+
+  /**
+   * The kinds of curve, each of which is also the number of points stored for that curve.
+   */
+  public static final byte LINE = 1, QUADRATIC = 2, CUBIC = 3;
+
+  public final FillRule fillRule;
+  public final Box2 bounds;
+
+  // interleaved coordinates, where curve i starts at a point followed by its (kinds[i] - 1) interior control points,
+  // and ends at the first point of the next curve in its ring
+  private final double[] points;
+  private final byte[] kinds;
+
+  // ring i is curves [curveOffsets[i], curveOffsets[i + 1]) and points [pointOffsets[i], pointOffsets[i + 1])
+  private final int[] curveOffsets, pointOffsets;
+
+  // [lx, ly, ux, uy] for each ring
+  private final double[] ringBounds;
+  private final double[] signedAreas;
+
+  // the band index of each ring with at least Ring2.INDEX_THRESHOLD curves, and null for the rest
+  private final Bands[] bands;
+
+  private PackedRegion2(Builder b, FillRule fillRule) {
+    this.fillRule = fillRule;
+    this.points = Arrays.copyOf(b.points, b.pointCount << 1);
+    this.kinds = Arrays.copyOf(b.kinds, b.curveCount);
+    this.curveOffsets = Arrays.copyOf(b.curveOffsets, b.ringCount + 1);
+    this.pointOffsets = Arrays.copyOf(b.pointOffsets, b.ringCount + 1);
+    this.ringBounds = Arrays.copyOf(b.ringBounds, b.ringCount << 2);
+    this.signedAreas = Arrays.copyOf(b.signedAreas, b.ringCount);
+
+    // built eagerly, so that the region stays immutable and can be shared between threads
+    this.bands = new Bands[b.ringCount];
+    for (int r = 0; r < b.ringCount; r++) {
+      if (curveOffsets[r + 1] - curveOffsets[r] >= Ring2.INDEX_THRESHOLD) {
+        bands[r] = new Bands(this, r);
+      }
+    }
+
+    if (b.ringCount == 0) {
+      this.bounds = Box2.EMPTY;
+    } else {
+      double lx = ringBounds[0], ly = ringBounds[1], ux = ringBounds[2], uy = ringBounds[3];
+      for (int i = 4; i < ringBounds.length; i += 4) {
+        lx = Math.min(lx, ringBounds[i]);
+        ly = Math.min(ly, ringBounds[i + 1]);
+        ux = Math.max(ux, ringBounds[i + 2]);
+        uy = Math.max(uy, ringBounds[i + 3]);
+      }
+      this.bounds = new Box2(lx, ly, ux, uy);
+    }
+  }
+
+  public PackedRegion2(Region2 region) {
+    this(new Builder().add(region.rings), region.fillRule);
+  }
+
+  ///
+
+  public int rings() {
+    return curveOffsets.length - 1;
+  }
+
+  public int curves() {
+    return kinds.length;
+  }
+
+  /**
+   * @return the number of points stored, which is the number of curves plus the number of interior control points
+   */
+  public int points() {
+    return points.length >> 1;
+  }
+
+  public Box2 bounds() {
+    return bounds;
+  }
+
+  public FillRule fillRule() {
+    return fillRule;
+  }
+
+  /**
+   * @return one of {@link #LINE}, {@link #QUADRATIC}, or {@link #CUBIC}
+   */
+  public byte kind(int curve) {
+    return kinds[curve];
+  }
+
+  public Box2 bounds(int ring) {
+    int idx = ring << 2;
+    return new Box2(ringBounds[idx], ringBounds[idx + 1], ringBounds[idx + 2], ringBounds[idx + 3]);
+  }
+
+  public boolean isClockwise(int ring) {
+    return signedAreas[ring] < 0;
+  }
+
+  public double area(int ring) {
+    return Math.abs(signedAreas[ring]);
+  }
+
+  /**
+   * @return the sum of each ring's signed area, where counter-clockwise rings are positive, which is the area of the
+   * region if its rings don't overlap
+   */
+  public double area() {
+    double sum = 0;
+    for (double a : signedAreas) {
+      sum += a;
+    }
+    return sum;
+  }
+
+  /// materialization
+
+  public Curve2 curve(int curve) {
+    if (curve < 0 || curve >= kinds.length) {
+      throw new IndexOutOfBoundsException(curve + " must be within [0," + kinds.length + ")");
+    }
+
+    int ring = Arrays.binarySearch(curveOffsets, curve);
+    if (ring < 0) {
+      ring = -ring - 2;
+    } else {
+      // skip past any empty rings
+      while (curveOffsets[ring + 1] == curve) {
+        ring++;
+      }
+    }
+
+    int p = pointOffsets[ring];
+    for (int i = curveOffsets[ring]; i < curve; i++) {
+      p += kinds[i];
+    }
+    return curve(kinds[curve], p, curve + 1 < curveOffsets[ring + 1] ? p + kinds[curve] : pointOffsets[ring]);
+  }
+
+  public Ring2 ring(int ring) {
+    int start = curveOffsets[ring], end = curveOffsets[ring + 1];
+    Curve2[] curves = new Curve2[end - start];
+    int p = pointOffsets[ring];
+    for (int i = start; i < end; i++) {
+      int q = i + 1 < end ? p + kinds[i] : pointOffsets[ring];
+      curves[i - start] = curve(kinds[i], p, q);
+      p += kinds[i];
+    }
+    return new Ring2(curves, bounds(ring), isClockwise(ring), area(ring));
+  }
+
+  public Region2 region() {
+    Ring2[] rings = new Ring2[rings()];
+    for (int i = 0; i < rings.length; i++) {
+      rings[i] = ring(i);
+    }
+    return new Region2(rings, fillRule);
+  }
+
+  private Vec2 point(int p) {
+    return vec(points[p << 1], points[(p << 1) + 1]);
+  }
+
+  private Curve2 curve(int kind, int p, int end) {
+    switch (kind) {
+      case LINE:
+        return Line2.line(point(p), point(end));
+      case QUADRATIC:
+        return new QuadraticBezier2(point(p), point(p + 1), point(end), true);
+      case CUBIC:
+        return new CubicBezier2(point(p), point(p + 1), point(p + 2), point(end), true);
+      default:
+        throw new IllegalStateException();
+    }
+  }
+
+  /// tests
+
+  public boolean contains(Vec2 p) {
+    return test(p.x, p.y).inside;
+  }
+
+  public boolean contains(double x, double y) {
+    return test(x, y).inside;
+  }
+
+  /**
+   * Equivalent to {@link #contains(double, double)}, as per {@link #test(double, double, double[])}.
+   */
+  public boolean contains(double x, double y, double[] scratch) {
+    return test(x, y, scratch).inside;
+  }
+
+  public Result test(Vec2 p) {
+    return test(p.x, p.y);
+  }
+
+  /**
+   * @return the same result as {@link Region2#test(Vec2)}, without materializing any curves unless the point lies on
+   * one of them
+   */
+  public Result test(double x, double y) {
+    return test(x, y, new double[3]);
+  }
+
+  /**
+   * Equivalent to {@link #test(double, double)}, but uses {@code scratch} to solve for ray crossings, so that testing
+   * many points with the same array doesn't allocate.  Since the region is immutable, it can be shared between threads
+   * as long as each has its own scratch array.
+   *
+   * @param scratch an array of at least three elements, which is overwritten
+   */
+  public Result test(double x, double y, double[] scratch) {
+    int winding = 0;
+    for (int r = 0; r < rings(); r++) {
+      int w = scan(r, x, y, true, scratch);
+      if (isEdge(r, w)) {
+        return new Result(curve(curveOffsets[r] + (w - Ring2.EDGE)));
+      }
+      winding += w;
+    }
+    return fillRule.isInside(winding) ? Result.INSIDE : Result.OUTSIDE;
+  }
+
+  private boolean isEdge(int ring, int count) {
+    return count < -(curveOffsets[ring + 1] - curveOffsets[ring]);
+  }
+
+  /**
+   * The equivalent of {@link Ring2}'s ray scan, which returns the crossing count or winding number, or
+   * {@code Ring2.EDGE + idx} if the point lies on the ring's {@code idx}-th curve.
+   */
+  private int scan(int ring, double x, double y, boolean signed, double[] acc) {
+    int b = ring << 2;
+    double lx = ringBounds[b], ly = ringBounds[b + 1], ux = ringBounds[b + 2], uy = ringBounds[b + 3];
+    if (!(lx - SPATIAL_EPSILON <= x && x <= ux + SPATIAL_EPSILON && ly - SPATIAL_EPSILON <= y && y <= uy + SPATIAL_EPSILON)) {
+      return 0;
+    }
+
+    double rayEnd = ux + 1;
+    int start = curveOffsets[ring], end = curveOffsets[ring + 1];
+    int count = 0;
+
+    if (end - start < Ring2.INDEX_THRESHOLD) {
+      int p = pointOffsets[ring];
+      for (int i = start; i < end; i++) {
+        int q = i + 1 < end ? p + kinds[i] : pointOffsets[ring];
+        double
+          x0 = points[p << 1],
+          y0 = points[(p << 1) + 1],
+          x1 = points[q << 1],
+          y1 = points[(q << 1) + 1];
+
+        int crossings = crossings(x, y, rayEnd, kinds[i], p, q, min(x0, x1), min(y0, y1), max(x0, x1), max(y0, y1), acc);
+        if (crossings < 0) {
+          return Ring2.EDGE + (i - start);
+        }
+        count += signed && crossings != 0 ? crossings * direction(p, q) : crossings;
+        p += kinds[i];
+      }
+    } else {
+      Bands bands = this.bands[ring];
+      BandIndex index = bands.index;
+      int band = index.band(y);
+      for (int i = index.start(band); i < index.end(band); i++) {
+        int idx = index.entry(i);
+        int p = bands.starts[idx], q = bands.starts[idx + 1];
+        double y0 = points[(p << 1) + 1], y1 = points[(q << 1) + 1];
+        double cly = min(y0, y1), cuy = max(y0, y1);
+        if (y < cly || y > cuy) {
+          continue;
+        }
+
+        double x0 = points[p << 1], x1 = points[q << 1];
+        int crossings = crossings(x, y, rayEnd, kinds[start + idx], p, q, min(x0, x1), cly, max(x0, x1), cuy, acc);
+        if (crossings < 0) {
+          return Ring2.EDGE + idx;
+        }
+        count += signed && crossings != 0 ? crossings * direction(p, q) : crossings;
+      }
+    }
+
+    return count;
+  }
+
+  private int direction(int p, int q) {
+    return points[(q << 1) + 1] > points[(p << 1) + 1] ? 1 : -1;
+  }
+
+  private int crossings(
+    double x, double y, double rayEnd,
+    int kind, int p, int q,
+    double lx, double ly, double ux, double uy,
+    double[] acc) {
+
+    int crossings = Ring2.crossings(x, y, lx, ly, ux, uy);
+    return crossings == Ring2.INTERSECT
+      ? Ring2.crossings(y, ly, uy, ray(x, y, rayEnd, kind, p, q, acc))
+      : crossings;
+  }
+
+  private double ray(double x, double y, double rayEnd, int kind, int p, int q, double[] acc) {
+    int i = p << 1, j = q << 1;
+    double result;
+    switch (kind) {
+      case LINE:
+        result = rayLine(x, y, rayEnd, points[i], points[i + 1], points[j], points[j + 1]);
+        break;
+      case QUADRATIC:
+        result = rayQuadratic(x, y, rayEnd,
+          points[i], points[i + 1], points[i + 2], points[i + 3], points[j], points[j + 1],
+          acc);
+        break;
+      case CUBIC:
+        result = rayCubic(x, y, rayEnd,
+          points[i], points[i + 1], points[i + 2], points[i + 3], points[i + 4], points[i + 5], points[j], points[j + 1],
+          acc);
+        break;
+      default:
+        throw new IllegalStateException();
+    }
+
+    return result == RAY_COLLINEAR
+      ? Intersections.rayCurve(x, y, rayEnd, curve(kind, p, q), acc)
+      : result;
+  }
+
+  /**
+   * The same {@link BandIndex} as {@link Ring2} uses, along with the first point of each curve, since the curves
+   * within a band aren't visited in sequence.  Each curve is monotonic, so its bounds and direction are read from its
+   * endpoints rather than stored, and the only per-curve overhead beyond the index entries is a single int.
+   */
+  private static class Bands {
+
+    final BandIndex index;
+
+    // curve i goes from point starts[i] to point starts[i + 1]
+    final int[] starts;
+
+    Bands(PackedRegion2 region, int ring) {
+      int start = region.curveOffsets[ring], n = region.curveOffsets[ring + 1] - start;
+      double[] points = region.points;
+
+      this.starts = new int[n + 1];
+      int p = region.pointOffsets[ring];
+      for (int i = 0; i < n; i++) {
+        starts[i] = p;
+        p += region.kinds[start + i];
+      }
+      starts[n] = region.pointOffsets[ring];
+
+      double[] lys = new double[n], uys = new double[n];
+      for (int i = 0; i < n; i++) {
+        double y0 = points[(starts[i] << 1) + 1], y1 = points[(starts[i + 1] << 1) + 1];
+        lys[i] = min(y0, y1);
+        uys[i] = max(y0, y1);
+      }
+
+      this.index = new BandIndex(lys, uys, region.ringBounds[(ring << 2) + 1], region.ringBounds[(ring << 2) + 3]);
+    }
+  }
+
+  /// transforms
+
+  public PackedRegion2 transform(Matrix3 m) {
+    return transform(m.affine());
+  }
+
+  /**
+   * Transforms every control point by {@code m}.  Rings whose curves all remain monotonic have their bounds and area
+   * recomputed from the packed points, and only rings where a curve has gained an extremum, such as under a rotation,
+   * are materialized and re-split.
+   */
+  public PackedRegion2 transform(Affine2 m) {
+    double[] points = m.transform(this.points.clone(), 0, this.points.length >> 1);
+
+    Builder b = new Builder();
+    double[] acc = new double[2];
+    for (int r = 0; r < rings(); r++) {
+      int start = curveOffsets[r], end = curveOffsets[r + 1];
+      int first = pointOffsets[r];
+
+      boolean monotonic = true;
+      for (int i = start, p = first; i < end && monotonic; p += kinds[i++]) {
+        monotonic = isMonotonic(points, kinds[i], p, i + 1 < end ? p + kinds[i] : first, acc);
+      }
+
+      if (monotonic) {
+        b.add(points, kinds, start, end, first, pointOffsets[r + 1]);
+      } else {
+        LinearList<Curve2> curves = new LinearList<>();
+        for (int i = start, p = first; i < end; p += kinds[i++]) {
+          curves.addLast(curve(points, kinds[i], p, i + 1 < end ? p + kinds[i] : first));
+        }
+        b.add(new Ring2(curves));
+      }
+    }
+
+    return new PackedRegion2(b.sort(), fillRule);
+  }
+
+  /**
+   * @return false if the curve has an extremum along either axis, as determined by {@link Curve2#inflections()}
+   */
+  private static boolean isMonotonic(double[] points, int kind, int p, int q, double[] acc) {
+    int i = p << 1, j = q << 1;
+    switch (kind) {
+      case QUADRATIC:
+        return Bezier2.isMonotonic(points[i], points[i + 2], points[j])
+          && Bezier2.isMonotonic(points[i + 1], points[i + 3], points[j + 1]);
+      case CUBIC:
+        return Bezier2.isMonotonic(points[i], points[i + 2], points[i + 4], points[j], acc)
+          && Bezier2.isMonotonic(points[i + 1], points[i + 3], points[i + 5], points[j + 1], acc);
+      default:
+        return true;
+    }
+  }
+
+  private static Curve2 curve(double[] points, int kind, int p, int q) {
+    int i = p << 1, j = q << 1;
+    Vec2 start = vec(points[i], points[i + 1]), end = vec(points[j], points[j + 1]);
+    switch (kind) {
+      case LINE:
+        return Line2.line(start, end);
+      case QUADRATIC:
+        return Bezier2.curve(start, vec(points[i + 2], points[i + 3]), end);
+      case CUBIC:
+        return Bezier2.curve(start, vec(points[i + 2], points[i + 3]), vec(points[i + 4], points[i + 5]), end);
+      default:
+        throw new IllegalStateException();
+    }
+  }
+
+  ///
+
+  private static class Builder {
+
+    double[] points = new double[64];
+    byte[] kinds = new byte[16];
+    int pointCount = 0, curveCount = 0;
+
+    int[] curveOffsets = new int[8], pointOffsets = new int[8];
+    double[] ringBounds = new double[32], signedAreas = new double[8];
+    int ringCount = 0;
+
+    Builder add(Ring2[] rings) {
+      for (Ring2 r : rings) {
+        add(r);
+      }
+      return this;
+    }
+
+    Builder add(Ring2 ring) {
+      for (Curve2 c : ring.curves) {
+        if (c instanceof Line2) {
+          curve(LINE, c.start());
+        } else if (c instanceof QuadraticBezier2) {
+          QuadraticBezier2 q = (QuadraticBezier2) c;
+          curve(QUADRATIC, q.p0, q.p1);
+        } else if (c instanceof CubicBezier2) {
+          CubicBezier2 q = (CubicBezier2) c;
+          curve(CUBIC, q.p0, q.p1, q.p2);
+        } else {
+          throw new IllegalArgumentException("unsupported curve type: " + c.getClass().getName());
+        }
+      }
+
+      Box2 b = ring.bounds;
+      return ring(b.lx, b.ly, b.ux, b.uy, ring.isClockwise ? -ring.area : ring.area);
+    }
+
+    /**
+     * Adds the curves {@code [start, end)} from another set of packed arrays, computing the ring's bounds and area.
+     */
+    Builder add(double[] points, byte[] kinds, int start, int end, int pointStart, int pointEnd) {
+      ensurePoints(pointEnd - pointStart);
+      System.arraycopy(points, pointStart << 1, this.points, pointCount << 1, (pointEnd - pointStart) << 1);
+      pointCount += pointEnd - pointStart;
+
+      ensureCurves(end - start);
+      System.arraycopy(kinds, start, this.kinds, curveCount, end - start);
+      curveCount += end - start;
+
+      double lx = Double.POSITIVE_INFINITY, ly = lx, ux = Double.NEGATIVE_INFINITY, uy = ux;
+      double signedArea = 0;
+      for (int i = start, p = pointStart; i < end; p += kinds[i++]) {
+        int a = p << 1, b = (i + 1 < end ? p + kinds[i] : pointStart) << 1;
+        lx = Math.min(lx, points[a]);
+        ly = Math.min(ly, points[a + 1]);
+        ux = Math.max(ux, points[a]);
+        uy = Math.max(uy, points[a + 1]);
+
+        switch (kinds[i]) {
+          case LINE:
+            signedArea += Vectors.lineArea(points[a], points[a + 1], points[b], points[b + 1]);
+            break;
+          case QUADRATIC:
+            signedArea += Vectors.quadraticArea(
+              points[a], points[a + 1], points[a + 2], points[a + 3], points[b], points[b + 1]);
+            break;
+          case CUBIC:
+            signedArea += Vectors.cubicArea(
+              points[a], points[a + 1], points[a + 2], points[a + 3], points[a + 4], points[a + 5], points[b], points[b + 1]);
+            break;
+        }
+      }
+
+      return ring(lx, ly, ux, uy, signedArea);
+    }
+
+    private void curve(byte kind, Vec2... points) {
+      ensureCurves(1);
+      ensurePoints(points.length);
+      kinds[curveCount++] = kind;
+      for (Vec2 v : points) {
+        this.points[pointCount << 1] = v.x;
+        this.points[(pointCount << 1) + 1] = v.y;
+        pointCount++;
+      }
+    }
+
+    private Builder ring(double lx, double ly, double ux, double uy, double signedArea) {
+      if (ringCount + 2 > curveOffsets.length) {
+        int n = curveOffsets.length << 1;
+        curveOffsets = Arrays.copyOf(curveOffsets, n);
+        pointOffsets = Arrays.copyOf(pointOffsets, n);
+        ringBounds = Arrays.copyOf(ringBounds, n << 2);
+        signedAreas = Arrays.copyOf(signedAreas, n);
+      }
+
+      int idx = ringCount << 2;
+      ringBounds[idx] = lx;
+      ringBounds[idx + 1] = ly;
+      ringBounds[idx + 2] = ux;
+      ringBounds[idx + 3] = uy;
+      signedAreas[ringCount] = signedArea;
+
+      ringCount++;
+      curveOffsets[ringCount] = curveCount;
+      pointOffsets[ringCount] = pointCount;
+
+      return this;
+    }
+
+    /**
+     * Reorders the rings by ascending area, as {@link Region2} does.
+     */
+    Builder sort() {
+      Integer[] order = new Integer[ringCount];
+      boolean sorted = true;
+      for (int i = 0; i < ringCount; i++) {
+        order[i] = i;
+        sorted &= i == 0 || Math.abs(signedAreas[i - 1]) <= Math.abs(signedAreas[i]);
+      }
+      if (sorted) {
+        return this;
+      }
+
+      Arrays.sort(order, (a, b) -> Double.compare(Math.abs(signedAreas[a]), Math.abs(signedAreas[b])));
+      Builder b = new Builder();
+      for (int i : order) {
+        b.add(this, i);
+      }
+      return b;
+    }
+
+    private void add(Builder src, int ring) {
+      int cs = src.curveOffsets[ring], ce = src.curveOffsets[ring + 1];
+      int ps = src.pointOffsets[ring], pe = src.pointOffsets[ring + 1];
+
+      ensureCurves(ce - cs);
+      System.arraycopy(src.kinds, cs, kinds, curveCount, ce - cs);
+      curveCount += ce - cs;
+
+      ensurePoints(pe - ps);
+      System.arraycopy(src.points, ps << 1, points, pointCount << 1, (pe - ps) << 1);
+      pointCount += pe - ps;
+
+      int idx = ring << 2;
+      ring(src.ringBounds[idx], src.ringBounds[idx + 1], src.ringBounds[idx + 2], src.ringBounds[idx + 3],
+        src.signedAreas[ring]);
+    }
+
+    private void ensureCurves(int n) {
+      if (curveCount + n > kinds.length) {
+        kinds = Arrays.copyOf(kinds, Math.max(curveCount + n, kinds.length << 1));
+      }
+    }
+
+    private void ensurePoints(int n) {
+      if ((pointCount + n) << 1 > points.length) {
+        points = Arrays.copyOf(points, Math.max((pointCount + n) << 1, points.length << 1));
+      }
+    }
+  }
+}
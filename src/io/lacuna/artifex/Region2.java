@@ -2,6 +2,7 @@ package io.lacuna.artifex;
 
 import io.lacuna.artifex.Ring2.Result;
 import io.lacuna.artifex.utils.EdgeList;
+import io.lacuna.artifex.utils.Rasterizer;
 import io.lacuna.artifex.utils.regions.Clip;
 import io.lacuna.artifex.utils.regions.Hulls;
 import io.lacuna.artifex.utils.regions.Monotonic;
@@ -11,6 +12,9 @@ import io.lacuna.bifurcan.Lists;
 
 import java.util.Arrays;
 import java.util.Comparator;
+import java.util.concurrent.ForkJoinPool;
+
+import static io.lacuna.artifex.utils.Intersections.SPATIAL_EPSILON;
 
 /**
  * @author ztellman
@@ -19,13 +23,23 @@ public class Region2 {
 
   public final Ring2[] rings;
   public final Box2 bounds;
+  public final FillRule fillRule;
 
   public Region2(Iterable<Ring2> rings) {
-    this(LinearList.from(rings).toArray(Ring2[]::new));
+    this(rings, FillRule.EVEN_ODD);
+  }
+
+  public Region2(Iterable<Ring2> rings, FillRule fillRule) {
+    this(LinearList.from(rings).toArray(Ring2[]::new), fillRule);
   }
 
   public Region2(Ring2[] rings) {
+    this(rings, FillRule.EVEN_ODD);
+  }
+
+  public Region2(Ring2[] rings, FillRule fillRule) {
     this.rings = rings.clone();
+    this.fillRule = fillRule;
     Arrays.sort(this.rings, Comparator.comparingDouble(r -> r.area));
 
     this.bounds = Arrays.stream(this.rings)
@@ -47,39 +61,204 @@ public class Region2 {
     return bounds;
   }
 
+  public FillRule fillRule() {
+    return fillRule;
+  }
+
+  /**
+   * @return a region with the same rings, interpreted according to {@code fillRule}
+   */
+  public Region2 fillRule(FillRule fillRule) {
+    return new Region2(rings, fillRule);
+  }
+
+  /**
+   * @return the result of testing {@code p} against the region's combined winding number, interpreted according to its
+   * {@link FillRule}, or the curve {@code p} lies on
+   */
   public Result test(Vec2 p) {
+    double[] acc = new double[3];
+    int winding = 0;
     for (Ring2 r : rings) {
-      Result result = r.test(p);
-      if (result.inside) {
-        return result.curve == null && r.isClockwise
-          ? Result.OUTSIDE
-          : result;
+      int w = r.scan(p, true, acc);
+      if (w < -r.curves.length) {
+        return new Result(r.curves[w - Ring2.EDGE]);
       }
+      winding += w;
     }
 
-    return Result.OUTSIDE;
+    return fillRule.isInside(winding) ? Result.INSIDE : Result.OUTSIDE;
   }
 
   public boolean contains(Vec2 p) {
     return test(p).inside;
   }
 
+  /**
+   * Scratch space for {@link #contains(double[], double[], boolean[], Scratch)}, which grows as needed, and can be reused
+   * across calls and regions so that testing many batches of points doesn't allocate for each batch.  This is mutable
+   * and not thread-safe, so each thread should have its own.
+   */
+  public static class Scratch {
+
+    final double[] acc = new double[3];
+    int[] pending = new int[0], crossings = new int[0], winding = new int[0], sorted = new int[0];
+    int[] starts = new int[0], cursors = new int[0];
+    double[] xs = new double[0], ys = new double[0];
+
+    static int[] ensure(int[] array, int n) {
+      return array.length >= n ? array : new int[Math.max(n, array.length << 1)];
+    }
+
+    static double[] ensure(double[] array, int n) {
+      return array.length >= n ? array : new double[Math.max(n, array.length << 1)];
+    }
+  }
+
+  /**
+   * Equivalent to {@link #contains(double[], double[], boolean[], Scratch)}, with newly allocated scratch space.
+   *
+   * @return {@code out}
+   */
+  public boolean[] contains(double[] xs, double[] ys, boolean[] out) {
+    return contains(xs, ys, out, new Scratch());
+  }
+
+  /**
+   * Tests many points at once, writing whether {@code [xs[i], ys[i]]} is contained by the region into {@code out[i]}.
+   * This is equivalent to calling {@link #contains(Vec2)} on each point, but avoids per-point allocation and visits each
+   * curve once per horizontal band of points, rather than once per point.  All intermediate arrays are taken from
+   * {@code scratch}, so once it has grown to fit the largest batch, subsequent calls don't allocate.
+   *
+   * @return {@code out}
+   */
+  public boolean[] contains(double[] xs, double[] ys, boolean[] out, Scratch scratch) {
+    int n = xs.length;
+    if (ys.length != n || out.length < n) {
+      throw new IllegalArgumentException("xs, ys, and out must have the same length");
+    }
+    return contains(xs, ys, n, out, scratch);
+  }
+
+  /**
+   * Tests the first {@code n} points, which lets {@code xs} and {@code ys} be scratch arrays longer than the batch.
+   */
+  boolean[] contains(double[] xs, double[] ys, int n, boolean[] out, Scratch scratch) {
+    int[] pending = scratch.pending = Scratch.ensure(scratch.pending, n);
+    int count = 0;
+    for (int i = 0; i < n; i++) {
+      out[i] = false;
+      if (bounds.lx - SPATIAL_EPSILON <= xs[i] && xs[i] <= bounds.ux + SPATIAL_EPSILON
+        && bounds.ly - SPATIAL_EPSILON <= ys[i] && ys[i] <= bounds.uy + SPATIAL_EPSILON) {
+        pending[count++] = i;
+      }
+    }
+
+    int[] crossings = scratch.crossings = Scratch.ensure(scratch.crossings, n);
+    int[] winding = scratch.winding = Scratch.ensure(scratch.winding, n);
+    for (int i = 0; i < count; i++) {
+      winding[pending[i]] = 0;
+    }
+
+    for (Ring2 r : rings) {
+      r.crossings(xs, ys, pending, count, crossings, true, scratch);
+      for (int i = 0; i < count; i++) {
+        int point = pending[i];
+        winding[point] = crossings[point] == Ring2.EDGE || winding[point] == Ring2.EDGE
+          ? Ring2.EDGE
+          : winding[point] + crossings[point];
+      }
+    }
+
+    for (int i = 0; i < count; i++) {
+      int point = pending[i];
+      out[point] = winding[point] == Ring2.EDGE || fillRule.isInside(winding[point]);
+    }
+    return out;
+  }
+
+  /**
+   * @return a compact representation of this region, as per {@link PackedRegion2}
+   */
+  public PackedRegion2 packed() {
+    return new PackedRegion2(this);
+  }
+
+  /**
+   * @return a {@code width * height} array of 8-bit coverage values for the region after it's been transformed by
+   * {@code transform}, as per {@link Rasterizer#rasterize(Region2, Matrix3, int, int, byte[])}
+   */
+  public byte[] rasterize(Matrix3 transform, int width, int height) {
+    return Rasterizer.rasterize(this, transform, width, height);
+  }
+
   /// transforms and set operations
 
   public Region2 transform(Matrix3 m) {
-    return new Region2(Arrays.stream(rings).map(r -> r.transform(m)).toArray(Ring2[]::new));
+    return transform(m.affine());
   }
 
+  public Region2 transform(Affine2 m) {
+    return new Region2(Arrays.stream(rings).map(r -> r.transform(m)).toArray(Ring2[]::new), fillRule);
+  }
+
+  /**
+   * @return a view of the region under {@code m}, which answers point queries by mapping the point rather than the
+   * region, as per {@link TransformedRegion2}
+   */
+  public TransformedRegion2 transformed(Affine2 m) {
+    return new TransformedRegion2(this, m);
+  }
+
+  public TransformedRegion2 transformed(Matrix3 m) {
+    return transformed(m.affine());
+  }
+
+  /**
+   * The boolean operations assume that the rings of each operand don't overlap, as is the case for their results.
+   *
+   * @throws IllegalArgumentException if either region uses {@link FillRule#NON_ZERO}
+   */
   public Region2 intersection(Region2 region) {
     return Clip.intersection(this, region);
   }
 
+  /**
+   * @throws IllegalArgumentException if either region uses {@link FillRule#NON_ZERO}
+   */
   public Region2 union(Region2 region) {
     return Clip.union(this, region);
   }
 
+  /**
+   * @throws IllegalArgumentException if either region uses {@link FillRule#NON_ZERO}
+   */
   public Region2 difference(Region2 region) {
     return Clip.difference(this, region);
   }
 
+  /**
+   * @return the union of all {@code regions}, computed in a single pass rather than pairwise
+   * @throws IllegalArgumentException if any region uses {@link FillRule#NON_ZERO}
+   */
+  public static Region2 union(Iterable<Region2> regions) {
+    return Clip.union(regions);
+  }
+
+  /**
+   * @return the union of all {@code regions}, computed as a parallel cascaded union on {@code pool}
+   * @throws IllegalArgumentException if any region uses {@link FillRule#NON_ZERO}
+   */
+  public static Region2 union(Iterable<Region2> regions, ForkJoinPool pool) {
+    return Clip.union(regions, pool);
+  }
+
+  /**
+   * @return the intersection of all {@code regions}, computed in a single pass rather than pairwise
+   * @throws IllegalArgumentException if any region uses {@link FillRule#NON_ZERO}
+   */
+  public static Region2 intersection(Iterable<Region2> regions) {
+    return Clip.intersection(regions);
+  }
+
 }
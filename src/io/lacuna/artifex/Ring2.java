@@ -1,12 +1,15 @@
 package io.lacuna.artifex;
 
+import io.lacuna.artifex.Bezier2.CubicBezier2;
+import io.lacuna.artifex.Bezier2.QuadraticBezier2;
+import io.lacuna.artifex.utils.BandIndex;
 import io.lacuna.artifex.utils.Intersections;
 import io.lacuna.bifurcan.LinearList;
 import io.lacuna.bifurcan.Lists;
 
 import java.util.Arrays;
-import java.util.Comparator;
 
+import static io.lacuna.artifex.Bezier2.isMonotonic;
 import static io.lacuna.artifex.Vec.vec;
 import static io.lacuna.artifex.utils.Intersections.*;
 import static io.lacuna.artifex.utils.Scalars.EPSILON;
@@ -46,7 +49,7 @@ public class Ring2 {
   public final boolean isClockwise;
   public final double area;
 
-  private Ring2(Curve2[] curves, Box2 bounds, boolean isClockwise, double area) {
+  Ring2(Curve2[] curves, Box2 bounds, boolean isClockwise, double area) {
     this.curves = curves;
     this.bounds = bounds;
     this.isClockwise = isClockwise;
@@ -72,12 +75,19 @@ public class Ring2 {
     this.area = abs(signedArea);
     this.bounds = bounds;
 
-    curves = list.toArray(Curve2[]::new);
+    this.curves = chain(list.toArray(Curve2[]::new));
+  }
+
+  /**
+   * Ensures that each curve ends exactly where the next one begins, and that the last curve ends where the first begins.
+   */
+  private static Curve2[] chain(Curve2[] curves) {
     for (int i = 0; i < curves.length - 1; i++) {
       curves[i] = curves[i].endpoints(curves[i].start(), curves[i + 1].start());
     }
     int lastIdx = curves.length - 1;
     curves[lastIdx] = curves[lastIdx].endpoints(curves[lastIdx].start(), curves[0].start());
+    return curves;
   }
 
   public static Ring2 of(Curve2... cs) {
@@ -120,59 +130,363 @@ public class Ring2 {
       area);
   }
 
+  /**
+   * A {@link BandIndex} of the curves, along with the bounds and direction of each curve, so that they needn't be
+   * recomputed for every point.
+   */
+  private static class Index {
+
+    final BandIndex bands;
+    final Box2[] bounds;
+    final byte[] directions;
+
+    Index(Curve2[] curves, Box2 ringBounds) {
+      int n = curves.length;
+      bounds = new Box2[n];
+      directions = new byte[n];
+      double[] lys = new double[n], uys = new double[n];
+      for (int i = 0; i < n; i++) {
+        bounds[i] = curves[i].bounds();
+        directions[i] = (byte) direction(curves[i]);
+        lys[i] = bounds[i].ly;
+        uys[i] = bounds[i].uy;
+      }
+      bands = new BandIndex(lys, uys, ringBounds.ly, ringBounds.uy);
+    }
+  }
+
+  /**
+   * Rings with fewer curves than this are simply scanned when testing points.
+   */
+  static final int INDEX_THRESHOLD = 16;
+
+  private Index index;
+
+  private Index index() {
+    if (index == null) {
+      index = new Index(curves, bounds);
+    }
+    return index;
+  }
+
+  /**
+   * The value returned by {@link #scan(Vec2, boolean)} and written by
+   * {@link #crossings(double[], double[], int[], int, int[], boolean)} when a point lies on the ring.  Since the
+   * magnitude of any crossing count is at most the number of curves, this can never be confused with a count.
+   */
+  static final int EDGE = Integer.MIN_VALUE;
+
   public Result test(Vec2 p) {
+    int count = scan(p, false);
+    if (count < -curves.length) {
+      return new Result(curves[count - EDGE]);
+    }
+
+    //System.out.println(count);
+
+    return count % 2 == 1 ? Result.INSIDE : Result.OUTSIDE;
+  }
+
+  /**
+   * @return the result of testing {@code p} against this ring under the given fill rule
+   */
+  public Result test(Vec2 p, FillRule rule) {
+    int winding = scan(p, true);
+    if (winding < -curves.length) {
+      return new Result(curves[winding - EDGE]);
+    }
+    return rule.isInside(winding) ? Result.INSIDE : Result.OUTSIDE;
+  }
+
+  /**
+   * @return the number of times the ring winds around {@code p}, which is positive if the ring is counter-clockwise
+   * and negative if it is clockwise, or {@code Integer.MIN_VALUE} if {@code p} lies on the ring
+   */
+  public int winding(Vec2 p) {
+    int winding = scan(p, true);
+    return winding < -curves.length ? Integer.MIN_VALUE : winding;
+  }
+
+  /**
+   * Casts a ray to the right of {@code p}, and counts the curves it crosses.  If {@code signed} is true, curves heading
+   * downwards are subtracted rather than added, yielding the winding number.
+   *
+   * @return the crossing count, or {@code EDGE + idx} if {@code p} lies on {@code curves[idx]}
+   */
+  private int scan(Vec2 p, boolean signed) {
+    return scan(p, signed, new double[3]);
+  }
+
+  /**
+   * As {@link #scan(Vec2, boolean)}, using {@code acc} as scratch space for the ray crossings, so that a region can
+   * scan all its rings with one array.
+   */
+  int scan(Vec2 p, boolean signed, double[] acc) {
 
     if (!bounds.expand(SPATIAL_EPSILON).contains(p)) {
-      return Result.OUTSIDE;
+      return 0;
     }
 
-    Line2 ray = Line2.line(p, vec(bounds.ux + 1, p.y));
+    double rayEnd = bounds.ux + 1;
     int count = 0;
 
-    // since our curves have been split at inflection points, there can only
-    // be a single ray/curve intersection unless the curve is collinear
-    for (Curve2 c : curves) {
-      Box2 b = c.bounds();
-      boolean flat = b.height() == 0;
-
-      //System.out.println(p + " " + b + " " + c);
-
-      // it's to our right
-      if (p.x < b.lx) {
-        // check if we intersect within [bottom, top)
-        if (p.y >= b.ly && p.y < b.uy) {
-          //System.out.println("right, incrementing");
-          count++;
+    if (curves.length < INDEX_THRESHOLD) {
+      for (int idx = 0; idx < curves.length; idx++) {
+        Curve2 c = curves[idx];
+        int crossings = crossings(p.x, p.y, rayEnd, c, c.bounds(), acc);
+        if (crossings < 0) {
+          return EDGE + idx;
         }
+        count += signed && crossings != 0 ? crossings * direction(c) : crossings;
+      }
+    } else {
+      // only curves whose vertical extent contains p.y can affect the result
+      Index index = index();
+      int band = index.bands.band(p.y);
+      for (int i = index.bands.start(band); i < index.bands.end(band); i++) {
+        int idx = index.bands.entry(i);
+        Box2 b = index.bounds[idx];
+        if (p.y < b.ly || p.y > b.uy) {
+          continue;
+        }
+
+        int crossings = crossings(p.x, p.y, rayEnd, curves[idx], b, acc);
+        if (crossings < 0) {
+          return EDGE + idx;
+        }
+        count += signed ? crossings * index.directions[idx] : crossings;
+      }
+    }
+
+    return count;
+  }
+
+  /**
+   * @return 1 if the curve heads upwards, and -1 otherwise
+   */
+  private static int direction(Curve2 c) {
+    return c.end().y > c.start().y ? 1 : -1;
+  }
+
+  /**
+   * Counts the ray crossings for many points at once.  For each {@code points[i]} where {@code i < n}, writes the
+   * number of times a ray cast to the right from {@code [xs[point], ys[point]]} crosses the ring into
+   * {@code crossings[point]}, or {@link #EDGE} if the point lies on the ring.  If {@code signed} is true, this is the
+   * winding number rather than the crossing count.
+   * <p>
+   * Points are bucketed into the same bands as the index used by {@link #test(Vec2)}, so that each curve is only
+   * visited once per band.  Any intermediate arrays are taken from {@code scratch}.
+   */
+  void crossings(double[] xs, double[] ys, int[] points, int n, int[] crossings, boolean signed, Region2.Scratch scratch) {
+    Index index = index();
+    int bands = index.bands.bands();
+    double rayEnd = bounds.ux + 1;
+    double[] acc = scratch.acc;
+
+    // counting sort the points within our bounds into bands
+    int[] starts = scratch.starts = Region2.Scratch.ensure(scratch.starts, bands + 1);
+    Arrays.fill(starts, 0, bands + 1, 0);
+    int m = 0;
+    for (int i = 0; i < n; i++) {
+      int point = points[i];
+      crossings[point] = 0;
+      if (inBounds(xs[point], ys[point])) {
+        starts[index.bands.band(ys[point]) + 1]++;
+        m++;
+      }
+    }
+    for (int j = 0; j < bands; j++) {
+      starts[j + 1] += starts[j];
+    }
+
+    int[] sorted = scratch.sorted = Region2.Scratch.ensure(scratch.sorted, m);
+    int[] cursors = scratch.cursors = Region2.Scratch.ensure(scratch.cursors, bands);
+    System.arraycopy(starts, 0, cursors, 0, bands);
+    for (int i = 0; i < n; i++) {
+      int point = points[i];
+      if (inBounds(xs[point], ys[point])) {
+        sorted[cursors[index.bands.band(ys[point])]++] = point;
+      }
+    }
+
+    for (int band = 0; band < bands; band++) {
+      int lo = starts[band], hi = starts[band + 1];
+      if (lo == hi) {
+        continue;
+      }
 
-        // we're inside the bounding box
-      } else if (b.expand(vec(SPATIAL_EPSILON, 0)).contains(p)) {
-        Vec2 i = Arrays.stream(lineCurve(ray, c))
-          .map(v -> v.map(n -> Intersections.round(n, Intersections.PARAMETRIC_EPSILON)))
-          .filter(PARAMETRIC_BOUNDS::contains)
-          .min(Comparator.comparingDouble(v -> v.x))
-          .orElse(null);
-
-        if (i != null) {
-          //System.out.println(i);
-          if (i.x == 0) {
-            return new Result(c);
-          } else if (!flat && p.y < b.uy) {
-            //System.out.println("intersected, incrementing");
-            count++;
+      for (int i = index.bands.start(band); i < index.bands.end(band); i++) {
+        int idx = index.bands.entry(i);
+        Curve2 c = curves[idx];
+        Box2 b = index.bounds[idx];
+        int direction = signed ? index.directions[idx] : 1;
+
+        for (int j = lo; j < hi; j++) {
+          int point = sorted[j];
+          double x = xs[point], y = ys[point];
+          if (y < b.ly || y > b.uy || crossings[point] == EDGE) {
+            continue;
           }
-        } else {
-          //System.out.println("no intersection");
+
+          int k = crossings(x, y, rayEnd, c, b, acc);
+          crossings[point] = k < 0 ? EDGE : crossings[point] + (k * direction);
         }
       }
     }
+  }
 
-    //System.out.println(count);
+  private boolean inBounds(double x, double y) {
+    return bounds.lx - SPATIAL_EPSILON <= x && x <= bounds.ux + SPATIAL_EPSILON
+      && bounds.ly - SPATIAL_EPSILON <= y && y <= bounds.uy + SPATIAL_EPSILON;
+  }
 
-    return count % 2 == 1 ? Result.INSIDE : Result.OUTSIDE;
+  /**
+   * @return -1 if {@code [x, y]} lies on the curve, otherwise the number of times a ray from {@code [x, y]} to
+   * {@code [rayEnd, y]} crosses the curve
+   * @param acc scratch space for {@link Intersections#rayCurve(double, double, double, Curve2, double[])}
+   */
+  private static int crossings(double x, double y, double rayEnd, Curve2 c, Box2 b, double[] acc) {
+    int crossings = crossings(x, y, b.lx, b.ly, b.ux, b.uy);
+    return crossings == INTERSECT
+      ? crossings(y, b.ly, b.uy, rayCurve(x, y, rayEnd, c, acc))
+      : crossings;
+  }
+
+  /**
+   * Returned by {@link #crossings(double, double, double, double, double, double)} when the ray must be intersected with
+   * the curve itself.
+   */
+  static final int INTERSECT = 2;
+
+  /**
+   * @return the number of times a ray cast to the right from {@code [x, y]} crosses a monotonic curve with the given
+   * bounds, if that can be determined from the bounds alone, otherwise {@link #INTERSECT}
+   */
+  static int crossings(double x, double y, double lx, double ly, double ux, double uy) {
+
+    //System.out.println(p + " " + b + " " + c);
+
+    // since our curves have been split at inflection points, there can only
+    // be a single ray/curve intersection unless the curve is collinear
+
+    // it's to our right
+    if (x < lx) {
+      // check if we intersect within [bottom, top)
+      if (y >= ly && y < uy) {
+        //System.out.println("right, incrementing");
+        return 1;
+      }
+
+      // we're inside the bounding box
+    } else if (x <= ux + SPATIAL_EPSILON && y >= ly && y <= uy) {
+      return INTERSECT;
+    }
+
+    return 0;
+  }
+
+  /**
+   * @param s the result of {@link Intersections#rayCurve(double, double, double, Curve2, double[])}
+   * @return -1 if the point lies on the curve, otherwise the number of times the ray crosses the curve
+   */
+  static int crossings(double y, double ly, double uy, double s) {
+    boolean flat = uy - ly == 0;
+
+    if (!Double.isNaN(s)) {
+      //System.out.println(s);
+      if (s == 0) {
+        return -1;
+      } else if (!flat && y < uy) {
+        //System.out.println("intersected, incrementing");
+        return 1;
+      }
+    } else {
+      //System.out.println("no intersection");
+    }
+
+    return 0;
   }
 
   public Ring2 transform(Matrix3 m) {
-    return new Ring2(() -> Arrays.stream(curves).map(c -> c.transform(m)).iterator());
+    return transform(m.affine());
+  }
+
+  /**
+   * Since an affine transform preserves the relationships between control points, the transformed ring is derived
+   * directly from this one.  Each vertex is transformed once and shared by the curves on either side of it, the area is
+   * scaled by the transform's determinant, and curves are only re-split if they've gained an extremum along either axis,
+   * which can only happen if the transform rotates or shears.
+   */
+  public Ring2 transform(Affine2 m) {
+    Matrix3 matrix = m.matrix3();
+    double det = m.determinant();
+    if (det == 0 || Double.isNaN(det)) {
+      // the ring collapses onto a line or a point, so let the constructor deal with the degenerate curves
+      return new Ring2(() -> Arrays.stream(curves).map(c -> c.transform(matrix)).iterator());
+    }
+
+    boolean axisAligned = m.isAxisAligned();
+    double[] acc = new double[2];
+
+    LinearList<Curve2> list = new LinearList<>(curves.length);
+    boolean split = false;
+    double lx = Double.POSITIVE_INFINITY, ly = lx, ux = Double.NEGATIVE_INFINITY, uy = ux;
+
+    Vec2 first = curves[0].start().transform(m), start = first;
+    for (int i = 0; i < curves.length; i++) {
+      Vec2 end = i + 1 < curves.length ? curves[i + 1].start().transform(m) : first;
+      Curve2 c = transform(curves[i], start, end, m, axisAligned, acc);
+
+      if (c != null) {
+        list.addLast(c);
+        lx = Math.min(lx, start.x);
+        ly = Math.min(ly, start.y);
+        ux = Math.max(ux, start.x);
+        uy = Math.max(uy, start.y);
+      } else {
+        split = true;
+        c = curves[i].transform(matrix).endpoints(start, end);
+        for (Curve2 b : c.split(c.inflections())) {
+          list.addLast(b);
+          Vec2 v = b.start();
+          lx = Math.min(lx, v.x);
+          ly = Math.min(ly, v.y);
+          ux = Math.max(ux, v.x);
+          uy = Math.max(uy, v.y);
+        }
+      }
+
+      start = end;
+    }
+
+    Curve2[] curves = list.toArray(Curve2[]::new);
+    return new Ring2(
+      split ? chain(curves) : curves,
+      new Box2(lx, ly, ux, uy),
+      det < 0 ? !isClockwise : isClockwise,
+      area * abs(det));
+  }
+
+  /**
+   * @return the curve transformed by {@code m} with the given endpoints, or null if it may have gained an extremum and
+   * needs to be split
+   */
+  private static Curve2 transform(Curve2 c, Vec2 start, Vec2 end, Affine2 m, boolean axisAligned, double[] acc) {
+    if (c instanceof Line2) {
+      return Line2.line(start, end);
+    } else if (c instanceof QuadraticBezier2) {
+      Vec2 p1 = ((QuadraticBezier2) c).p1.transform(m);
+      boolean monotonic = axisAligned
+        || (isMonotonic(start.x, p1.x, end.x) && isMonotonic(start.y, p1.y, end.y));
+      return monotonic ? new QuadraticBezier2(start, p1, end, true) : null;
+    } else if (c instanceof CubicBezier2) {
+      CubicBezier2 b = (CubicBezier2) c;
+      Vec2 p1 = b.p1.transform(m), p2 = b.p2.transform(m);
+      boolean monotonic = axisAligned
+        || (isMonotonic(start.x, p1.x, p2.x, end.x, acc) && isMonotonic(start.y, p1.y, p2.y, end.y, acc));
+      return monotonic ? new CubicBezier2(start, p1, p2, end, true) : null;
+    } else {
+      return null;
+    }
   }
 }
\ No newline at end of file
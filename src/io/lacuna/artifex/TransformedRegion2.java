@@ -0,0 +1,124 @@
+package io.lacuna.artifex;
+
+import io.lacuna.artifex.Ring2.Result;
+
+/**
+ * A view of a {@link Region2} under an affine transform, which answers point queries by mapping each point through the
+ * inverse of the transform, rather than transforming every curve in the region.  The inverse is computed once, when the
+ * view is created, so each query costs a single point transform on top of the underlying query.
+ * <p>
+ * Since queries are answered in the region's own coordinate space, the tolerance for a point lying on an edge is also
+ * measured in that space.
+ */
+public class TransformedRegion2 {
+
+  private final Region2 region;
+  private final Affine2 transform, inverse;
+  private Box2 bounds;
+
+  /**
+   * @throws IllegalStateException if {@code transform} is singular
+   */
+  public TransformedRegion2(Region2 region, Affine2 transform) {
+    this.region = region;
+    this.transform = transform;
+    this.inverse = transform.inverse();
+  }
+
+  /**
+   * @return the untransformed region
+   */
+  public Region2 source() {
+    return region;
+  }
+
+  public Affine2 transform() {
+    return transform;
+  }
+
+  public Affine2 inverse() {
+    return inverse;
+  }
+
+  /**
+   * @return a view of the same region, with {@code m} applied after the current transform
+   */
+  public TransformedRegion2 transform(Affine2 m) {
+    return new TransformedRegion2(region, m.mul(transform));
+  }
+
+  public TransformedRegion2 transform(Matrix3 m) {
+    return transform(m.affine());
+  }
+
+  /**
+   * @return the transformed region, which requires transforming every curve
+   */
+  public Region2 region() {
+    return region.transform(transform);
+  }
+
+  /**
+   * @return a box which contains the transformed region, though unless the transform is axis-aligned it may not be the
+   * smallest such box
+   */
+  public Box2 bounds() {
+    if (bounds == null) {
+      Box2 b = Box2.EMPTY;
+      if (!region.bounds.isEmpty()) {
+        for (Vec2 v : region.bounds.vertices()) {
+          b = b.union(transform.transform(v));
+        }
+      }
+      bounds = b;
+    }
+    return bounds;
+  }
+
+  ///
+
+  /**
+   * @return the result of {@link Region2#test(Vec2)} for the transformed region, where any curve in the result has been
+   * transformed
+   */
+  public Result test(Vec2 p) {
+    Result result = region.test(inverse.transform(p));
+    return result.curve == null
+      ? result
+      : new Result(result.curve.transform(transform.matrix3()));
+  }
+
+  public boolean contains(Vec2 p) {
+    return region.contains(inverse.transform(p));
+  }
+
+  /**
+   * Equivalent to {@link #contains(double[], double[], boolean[], Region2.Scratch)}, with newly allocated scratch space.
+   *
+   * @return {@code out}
+   */
+  public boolean[] contains(double[] xs, double[] ys, boolean[] out) {
+    return contains(xs, ys, out, new Region2.Scratch());
+  }
+
+  /**
+   * Equivalent to {@link Region2#contains(double[], double[], boolean[], Region2.Scratch)} for the transformed region.
+   * The points are copied into {@code scratch} before being mapped into the region's coordinate space, so {@code xs}
+   * and {@code ys} are left unchanged.
+   *
+   * @return {@code out}
+   */
+  public boolean[] contains(double[] xs, double[] ys, boolean[] out, Region2.Scratch scratch) {
+    int n = xs.length;
+    if (ys.length != n || out.length < n) {
+      throw new IllegalArgumentException("xs, ys, and out must have the same length");
+    }
+
+    double[] txs = scratch.xs = Region2.Scratch.ensure(scratch.xs, n);
+    double[] tys = scratch.ys = Region2.Scratch.ensure(scratch.ys, n);
+    System.arraycopy(xs, 0, txs, 0, n);
+    System.arraycopy(ys, 0, tys, 0, n);
+    inverse.transform(txs, tys, 0, n);
+    return region.contains(txs, tys, n, out, scratch);
+  }
+}
@@ -114,6 +114,10 @@ public class Vec2 implements Vec<Vec2> {
     return m.transform(this);
   }
 
+  public Vec2 transform(Affine2 m) {
+    return m.transform(this);
+  }
+
   /**
    * @return a rotated vector
    */
@@ -0,0 +1,100 @@
+package io.lacuna.artifex.utils;
+
+import java.util.Arrays;
+
+/**
+ * An index of values by their vertical extent, which partitions {@code [ly, uy]} into horizontal bands and records
+ * which values overlap each band.  The number of bands is chosen so that the total number of entries is O(N), even
+ * when many values span most of the height.
+ * <p>
+ * The extents are only read during construction, so the index itself is just an int per entry and per band.  Since
+ * the values within a band may not actually contain a given {@code y}, callers are expected to check each value's own
+ * extent, which they can store however is most compact.
+ */
+public class BandIndex {
+
+  private static final int ENTRIES_PER_VALUE = 4;
+
+  private final double ly, bandHeight;
+
+  // the values in band i are entries[offsets[i]] to entries[offsets[i + 1]]
+  private final int[] offsets, entries;
+
+  /**
+   * @param lys the lower bound of each value's extent
+   * @param uys the upper bound of each value's extent
+   * @param ly the lower bound of every value's extent
+   * @param uy the upper bound of every value's extent
+   */
+  public BandIndex(double[] lys, double[] uys, double ly, double uy) {
+    int n = lys.length;
+    if (uys.length != n) {
+      throw new IllegalArgumentException("lys and uys must have the same length");
+    }
+
+    double heights = 0;
+    for (int i = 0; i < n; i++) {
+      heights += uys[i] - lys[i];
+    }
+
+    double height = uy - ly;
+    int bands = heights == 0
+      ? 1
+      : (int) Math.max(1, Math.min(n, (ENTRIES_PER_VALUE * n * height) / heights));
+
+    this.ly = ly;
+    this.bandHeight = height / bands;
+    this.offsets = new int[bands + 1];
+
+    for (int i = 0; i < n; i++) {
+      for (int j = band(lys[i]); j <= band(uys[i]); j++) {
+        offsets[j + 1]++;
+      }
+    }
+    for (int j = 0; j < bands; j++) {
+      offsets[j + 1] += offsets[j];
+    }
+
+    // since we add values in order, each band's entries will be sorted
+    this.entries = new int[offsets[bands]];
+    int[] cursors = Arrays.copyOf(offsets, bands);
+    for (int i = 0; i < n; i++) {
+      for (int j = band(lys[i]); j <= band(uys[i]); j++) {
+        entries[cursors[j]++] = i;
+      }
+    }
+  }
+
+  public int bands() {
+    return offsets.length - 1;
+  }
+
+  /**
+   * @return the band containing {@code y}, where values outside {@code [ly, uy]} are clamped to the first or last band
+   */
+  public int band(double y) {
+    int band = bandHeight == 0 ? 0 : (int) ((y - ly) / bandHeight);
+    return Math.max(0, Math.min(offsets.length - 2, band));
+  }
+
+  /**
+   * @return the index of the first entry in {@code band}
+   */
+  public int start(int band) {
+    return offsets[band];
+  }
+
+  /**
+   * @return the index after the last entry in {@code band}
+   */
+  public int end(int band) {
+    return offsets[band + 1];
+  }
+
+  /**
+   * @return the value at entry {@code i}
+   */
+  public int entry(int i) {
+    return entries[i];
+  }
+}
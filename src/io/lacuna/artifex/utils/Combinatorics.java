@@ -4,6 +4,7 @@ import io.lacuna.bifurcan.IList;
 import io.lacuna.bifurcan.LinearList;
 import io.lacuna.bifurcan.Lists;
 
+import java.util.Arrays;
 import java.util.concurrent.ThreadLocalRandom;
 import java.util.stream.IntStream;
 
@@ -64,6 +65,95 @@ public class Combinatorics {
     return result;
   }
 
+  /**
+   * Solves the assignment problem via the Hungarian algorithm, in O(N^2 M) time for an N x M matrix.
+   *
+   * @param costs a rectangular matrix, where {@code costs[i][j]} is the cost of assigning row {@code i} to column
+   *              {@code j}
+   * @return an array where the {@code i}th entry is the column assigned to row {@code i}, or -1 if the row is
+   * unassigned, such that the total cost is minimized and min(N, M) rows are assigned
+   */
+  public static int[] minimumCostMatching(double[][] costs) {
+    int rows = costs.length;
+    int cols = rows == 0 ? 0 : costs[0].length;
+
+    // the algorithm requires at least as many columns as rows, so transpose if necessary
+    if (rows > cols) {
+      double[][] transposed = new double[cols][rows];
+      for (int i = 0; i < rows; i++) {
+        for (int j = 0; j < cols; j++) {
+          transposed[j][i] = costs[i][j];
+        }
+      }
+
+      int[] colToRow = minimumCostMatching(transposed);
+      int[] result = new int[rows];
+      Arrays.fill(result, -1);
+      for (int j = 0; j < cols; j++) {
+        if (colToRow[j] >= 0) {
+          result[colToRow[j]] = j;
+        }
+      }
+      return result;
+    }
+
+    // potentials and matches are 1-indexed, with 0 acting as a sentinel
+    double[] u = new double[rows + 1], v = new double[cols + 1], minSlack = new double[cols + 1];
+    int[] match = new int[cols + 1], way = new int[cols + 1];
+    boolean[] used = new boolean[cols + 1];
+
+    for (int i = 1; i <= rows; i++) {
+      match[0] = i;
+      int j0 = 0;
+      Arrays.fill(minSlack, Double.POSITIVE_INFINITY);
+      Arrays.fill(used, false);
+
+      do {
+        used[j0] = true;
+        int i0 = match[j0], j1 = 0;
+        double delta = Double.POSITIVE_INFINITY;
+        for (int j = 1; j <= cols; j++) {
+          if (!used[j]) {
+            double slack = costs[i0 - 1][j - 1] - u[i0] - v[j];
+            if (slack < minSlack[j]) {
+              minSlack[j] = slack;
+              way[j] = j0;
+            }
+            if (minSlack[j] < delta) {
+              delta = minSlack[j];
+              j1 = j;
+            }
+          }
+        }
+
+        for (int j = 0; j <= cols; j++) {
+          if (used[j]) {
+            u[match[j]] += delta;
+            v[j] -= delta;
+          } else {
+            minSlack[j] -= delta;
+          }
+        }
+        j0 = j1;
+      } while (match[j0] != 0);
+
+      do {
+        int j1 = way[j0];
+        match[j0] = match[j1];
+        j0 = j1;
+      } while (j0 != 0);
+    }
+
+    int[] result = new int[rows];
+    Arrays.fill(result, -1);
+    for (int j = 1; j <= cols; j++) {
+      if (match[j] > 0) {
+        result[match[j] - 1] = j - 1;
+      }
+    }
+    return result;
+  }
+
   /**
    * Given a list of potential values at each index in a list, returns all possible combinations of those values.
    */
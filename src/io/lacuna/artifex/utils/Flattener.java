@@ -0,0 +1,220 @@
+package io.lacuna.artifex.utils;
+
+import io.lacuna.artifex.*;
+import io.lacuna.artifex.Bezier2.CubicBezier2;
+import io.lacuna.artifex.Bezier2.QuadraticBezier2;
+
+import java.util.function.Consumer;
+
+import static java.lang.Math.*;
+
+/**
+ * Flattens curves into polylines, appending the vertices to a single packed array of coordinates, where vertex
+ * {@code i} is at {@code [coordinates()[i * 2], coordinates()[(i * 2) + 1]]}.  Each ring or path is a contiguous run of
+ * vertices, and rings aren't closed with a duplicate of their first vertex.
+ * <p>
+ * Rather than recursively subdividing each curve, the number of segments is estimated up front using Wang's formula,
+ * which gives the number of uniformly spaced segments needed to stay within {@code error} of the curve.  This will
+ * sometimes use more segments than are strictly necessary, but requires no intermediate allocation.
+ * <p>
+ * This is mutable and not thread-safe, and is meant to be reused via {@link #clear()}.
+ */
+public class Flattener {
+
+  private final double error;
+
+  private double[] coordinates = new double[64];
+  private int vertices = 0;
+
+  // polyline i is vertices offsets[i] to offsets[i + 1]
+  private int[] offsets = new int[8];
+  private int polylines = 0;
+
+  public Flattener(double error) {
+    if (error <= 0) {
+      throw new IllegalArgumentException("error must be positive");
+    }
+    this.error = error;
+  }
+
+  /**
+   * Flattens each ring of {@code region} in turn, invoking {@code ring} with a flattener containing only that ring, so
+   * that arbitrarily large regions can be processed with a single, reused buffer.
+   */
+  public static void flatten(Region2 region, double error, Consumer<Flattener> ring) {
+    Flattener f = new Flattener(error);
+    for (Ring2 r : region.rings) {
+      ring.accept(f.clear().add(r));
+    }
+  }
+
+  ///
+
+  public Flattener clear() {
+    vertices = 0;
+    polylines = 0;
+    return this;
+  }
+
+  public Flattener add(Region2 region) {
+    for (Ring2 r : region.rings) {
+      add(r);
+    }
+    return this;
+  }
+
+  public Flattener add(Ring2 ring) {
+    return add(ring.curves, true);
+  }
+
+  public Flattener add(Path2 path) {
+    return add(path.curves(), path.isRing());
+  }
+
+  /**
+   * Appends {@code curves} as a single polyline, where each curve is assumed to start where the previous one ended.
+   *
+   * @param closed if true, the final vertex is omitted, since it's the same as the first
+   */
+  public Flattener add(Curve2[] curves, boolean closed) {
+    if (curves.length == 0) {
+      return this;
+    }
+
+    if (polylines + 2 > offsets.length) {
+      int[] offsets = new int[this.offsets.length << 1];
+      System.arraycopy(this.offsets, 0, offsets, 0, polylines + 1);
+      this.offsets = offsets;
+    }
+    offsets[polylines] = vertices;
+
+    Vec2 start = curves[0].start();
+    vertex(start.x, start.y);
+    for (Curve2 c : curves) {
+      append(c);
+    }
+
+    if (closed) {
+      vertices--;
+    }
+    offsets[++polylines] = vertices;
+
+    return this;
+  }
+
+  ///
+
+  /**
+   * @return the number of polylines
+   */
+  public int polylines() {
+    return polylines;
+  }
+
+  /**
+   * @return the index of the first vertex of polyline {@code i}, where {@code offset(polylines())} is the total number
+   * of vertices
+   */
+  public int offset(int i) {
+    if (i < 0 || i > polylines) {
+      throw new IndexOutOfBoundsException(i + " must be within [0," + polylines + "]");
+    }
+    return offsets[i];
+  }
+
+  /**
+   * @return the total number of vertices
+   */
+  public int vertices() {
+    return vertices;
+  }
+
+  public double x(int vertex) {
+    return coordinates[vertex << 1];
+  }
+
+  public double y(int vertex) {
+    return coordinates[(vertex << 1) + 1];
+  }
+
+  /**
+   * @return the underlying array of interleaved coordinates, which is only valid up to {@code vertices() * 2}, and
+   * will be overwritten by subsequent calls to {@link #add(Curve2[], boolean)} and {@link #clear()}
+   */
+  public double[] coordinates() {
+    return coordinates;
+  }
+
+  ///
+
+  /**
+   * @return the number of uniformly spaced segments needed to approximate the curve to within {@code error}
+   */
+  public static int segments(Curve2 c, double error) {
+    double m;
+    if (c instanceof QuadraticBezier2) {
+      QuadraticBezier2 q = (QuadraticBezier2) c;
+      // (d * (d - 1) / 8) * max |p[i] - 2p[i + 1] + p[i + 2]|, where d = 2
+      m = 0.25 * secondDifference(q.p0, q.p1, q.p2);
+    } else if (c instanceof CubicBezier2) {
+      CubicBezier2 b = (CubicBezier2) c;
+      // as above, where d = 3
+      m = 0.75 * max(secondDifference(b.p0, b.p1, b.p2), secondDifference(b.p1, b.p2, b.p3));
+    } else {
+      return 1;
+    }
+
+    return max(1, (int) ceil(sqrt(m / error)));
+  }
+
+  private static double secondDifference(Vec2 a, Vec2 b, Vec2 c) {
+    return hypot(a.x - (2 * b.x) + c.x, a.y - (2 * b.y) + c.y);
+  }
+
+  private void append(Curve2 c) {
+    int n = segments(c, error);
+    ensureCapacity(n);
+
+    if (c instanceof QuadraticBezier2) {
+      QuadraticBezier2 q = (QuadraticBezier2) c;
+      double x0 = q.p0.x, y0 = q.p0.y, x1 = q.p1.x, y1 = q.p1.y, x2 = q.p2.x, y2 = q.p2.y;
+      for (int i = 1; i < n; i++) {
+        double t = (double) i / n;
+        vertex(Vectors.quadratic(x0, x1, x2, t), Vectors.quadratic(y0, y1, y2, t));
+      }
+    } else if (c instanceof CubicBezier2) {
+      CubicBezier2 q = (CubicBezier2) c;
+      double
+        x0 = q.p0.x, y0 = q.p0.y, x1 = q.p1.x, y1 = q.p1.y,
+        x2 = q.p2.x, y2 = q.p2.y, x3 = q.p3.x, y3 = q.p3.y;
+      for (int i = 1; i < n; i++) {
+        double t = (double) i / n;
+        vertex(Vectors.cubic(x0, x1, x2, x3, t), Vectors.cubic(y0, y1, y2, y3, t));
+      }
+    } else if (n > 1) {
+      for (int i = 1; i < n; i++) {
+        Vec2 v = c.position((double) i / n);
+        vertex(v.x, v.y);
+      }
+    }
+
+    Vec2 end = c.end();
+    vertex(end.x, end.y);
+  }
+
+  private void ensureCapacity(int n) {
+    int required = (vertices + n + 1) << 1;
+    if (required > coordinates.length) {
+      double[] coordinates = new double[max(required, this.coordinates.length << 1)];
+      System.arraycopy(this.coordinates, 0, coordinates, 0, vertices << 1);
+      this.coordinates = coordinates;
+    }
+  }
+
+  private void vertex(double x, double y) {
+    ensureCapacity(0);
+    coordinates[vertices << 1] = x;
+    coordinates[(vertices << 1) + 1] = y;
+    vertices++;
+  }
+}
@@ -12,9 +12,7 @@ import java.util.Comparator;
 import static io.lacuna.artifex.Box.box;
 import static io.lacuna.artifex.Interval.interval;
 import static io.lacuna.artifex.Line2.line;
-import static io.lacuna.artifex.Vec.dot;
 import static io.lacuna.artifex.Vec.vec;
-import static io.lacuna.artifex.Vec2.cross;
 import static io.lacuna.artifex.utils.Scalars.EPSILON;
 import static java.lang.Math.*;
 
@@ -47,6 +45,11 @@ public class Intersections {
     return a > b ? a : b;
   }
 
+  // equivalent to `PARAMETRIC_BOUNDS.expand(epsilon).contains(vec(s, t))`
+  private static boolean inParametricBounds(double s, double t, double epsilon) {
+    return s >= -epsilon && s <= 1 + epsilon && t >= -epsilon && t <= 1 + epsilon;
+  }
+
   // subdivision (slow, but as close to a reference implementation as exists)
 
   public static class CurveInterval {
@@ -61,7 +64,7 @@ public class Intersections {
       this.tHi = tHi;
       this.pLo = pLo;
       this.pHi = pHi;
-      this.isFlat = Vec.equals(pLo, pHi, SPATIAL_EPSILON)
+      this.isFlat = Vectors.equals(pLo.x, pLo.y, pHi.x, pHi.y, SPATIAL_EPSILON)
         || (tHi - tLo) < PARAMETRIC_EPSILON
         || curve.range(tLo, tHi).isFlat(SPATIAL_EPSILON);
     }
@@ -71,7 +74,7 @@ public class Intersections {
     }
 
     public boolean intersects(CurveInterval c) {
-      return bounds().expand(SPATIAL_EPSILON).intersects(c.bounds());
+      return Vectors.overlaps(pLo.x, pLo.y, pHi.x, pHi.y, c.pLo.x, c.pLo.y, c.pHi.x, c.pHi.y, SPATIAL_EPSILON);
     }
 
     public CurveInterval[] split() {
@@ -107,7 +110,7 @@ public class Intersections {
 
     public void intersections(CurveInterval c, IList<Vec2> acc) {
       for (Vec2 i : lineLine(line(pLo, pHi), line(c.pLo, c.pHi))) {
-        if (PARAMETRIC_BOUNDS.expand(PARAMETRIC_EPSILON).contains(i)) {
+        if (inParametricBounds(i.x, i.y, PARAMETRIC_EPSILON)) {
           acc.addLast(Vec.lerp(vec(tLo, c.tLo), vec(tHi, c.tHi), i));
         }
       }
@@ -173,8 +176,7 @@ public class Intersections {
   // from getting too small, and expand the width of our clipping regions by FAT_LINE_WIDTH_EPSILON.
 
   public static double signedDistance(Vec2 p, Vec2 a, Vec2 b) {
-    Vec2 d = b.sub(a);
-    return (cross(p, d) + cross(b, a)) / d.length();
+    return Vectors.signedDistance(p.x, p.y, a.x, a.y, b.x, b.y);
   }
 
   public static Interval fatLineWidth(Curve2 c) {
@@ -214,8 +216,8 @@ public class Intersections {
       p2 = vec(2 / 3.0, signedDistance(c.p2, a, b)),
       p3 = vec(1, signedDistance(c.p3, a, b));
 
-    double d1 = signedDistance(p1, p0, p3);
-    double d2 = signedDistance(p2, p0, p3);
+    double d1 = Vectors.signedDistance(p1.x, p1.y, p0.x, p0.y, p3.x, p3.y);
+    double d2 = Vectors.signedDistance(p2.x, p2.y, p0.x, p0.y, p3.x, p3.y);
     if (d1 * d2 < 0) {
       return new Vec2[]{p0, p1, p3, p2, p0};
     } else {
@@ -252,11 +254,12 @@ public class Intersections {
       }
     }
 
-    for (double y : new double[]{fatLine.lo, fatLine.hi}) {
+    for (int j = 0; j < 2; j++) {
+      double y = j == 0 ? fatLine.lo : fatLine.hi;
       for (int i = 0; i < hull.length - 1; i++) {
         Vec2 a = hull[i];
         Vec2 b = hull[i + 1];
-        if (interval(a.y, b.y).contains(y)) {
+        if (a.y < b.y ? a.y <= y && y <= b.y : b.y <= y && y <= a.y) {
           if (a.y == b.y) {
             lo = min(lo, min(a.x, b.x));
             hi = max(lo, max(a.x, b.x));
@@ -282,21 +285,25 @@ public class Intersections {
   }
 
   public static void addIntersections(FatLine a, FatLine b, IList<Vec2> acc) {
-    Line2
-      la = a.line(),
-      lb = b.line();
-
     Vec2
-      av = la.end().sub(la.start()),
-      bv = lb.end().sub(lb.start()),
-      asb = la.start().sub(lb.start());
-
-    double d = cross(av, bv);
+      as = a.range.start(),
+      ae = a.range.end(),
+      bs = b.range.start(),
+      be = b.range.end();
 
-    Vec2 i = vec(cross(bv, asb) / d, cross(av, asb) / d);
-
-    if (PARAMETRIC_BOUNDS.expand(0.1).contains(i)) {
-      acc.addLast(box(a.t, b.t).lerp(i));
+    double
+      avx = ae.x - as.x,
+      avy = ae.y - as.y,
+      bvx = be.x - bs.x,
+      bvy = be.y - bs.y,
+      asbx = as.x - bs.x,
+      asby = as.y - bs.y,
+      d = Vectors.cross(avx, avy, bvx, bvy),
+      s = Vectors.cross(bvx, bvy, asbx, asby) / d,
+      t = Vectors.cross(avx, avy, asbx, asby) / d;
+
+    if (inParametricBounds(s, t, 0.1)) {
+      acc.addLast(vec(Scalars.lerp(a.t.lo, a.t.hi, s), Scalars.lerp(b.t.lo, b.t.hi, t)));
     }
   }
 
@@ -349,7 +356,8 @@ public class Intersections {
     }
 
     public boolean intersects(FatLine l) {
-      return bounds().expand(SPATIAL_EPSILON).intersects(l.bounds());
+      Vec2 as = range.start(), ae = range.end(), bs = l.range.start(), be = l.range.end();
+      return Vectors.overlaps(as.x, as.y, ae.x, ae.y, bs.x, bs.y, be.x, be.y, SPATIAL_EPSILON);
     }
 
     public FatLine[] split() {
@@ -464,7 +472,7 @@ public class Intersections {
       double t = (double) i / MAX_CUBIC_CUBIC_INTERSECTIONS;
       Vec2 pa = a.position(Scalars.lerp(is[0].x, is[1].x, t));
       Vec2 pb = b.position(Scalars.lerp(is[0].y, is[1].y, t));
-      if (!Vec.equals(pa, pb, SPATIAL_EPSILON)) {
+      if (!Vectors.equals(pa.x, pa.y, pb.x, pb.y, SPATIAL_EPSILON)) {
         return false;
       }
     }
@@ -568,10 +576,13 @@ public class Intersections {
 
   public static Vec2[] lineLine(Line2 a, Line2 b) {
 
-    Vec2 av = a.end().sub(a.start());
-    Vec2 bv = b.end().sub(b.start());
+    double
+      avx = a.bx - a.ax,
+      avy = a.by - a.ay,
+      bvx = b.bx - b.ax,
+      bvy = b.by - b.ay,
+      d = Vectors.cross(avx, avy, bvx, bvy);
 
-    double d = cross(av, bv);
     if (abs(d) < 1e-6) {
       Vec2[] is = collinearIntersection(a, b);
       if (Arrays.stream(is).allMatch(v -> Vec.equals(a.position(v.x), b.position(v.y), SPATIAL_EPSILON))) {
@@ -581,41 +592,40 @@ public class Intersections {
       }
     }
 
-    Vec2 asb = a.start().sub(b.start());
-    double s = cross(bv, asb) / d;
-    double t = cross(av, asb) / d;
+    double
+      asbx = a.ax - b.ax,
+      asby = a.ay - b.ay,
+      s = Vectors.cross(bvx, bvy, asbx, asby) / d,
+      t = Vectors.cross(avx, avy, asbx, asby) / d;
     return new Vec2[]{vec(s, t)};
   }
 
   public static Vec2[] lineQuadratic(Line2 p, QuadraticBezier2 q) {
 
-    // (p0 - 2p1 + p2) t^2 + (-2p0 + 2p1) t + p0
-    Vec2 a = q.p0.add(q.p1.mul(-2)).add(q.p2);
-    Vec2 b = q.p0.mul(-2).add(q.p1.mul(2));
-    Vec2 c = q.p0;
+    Vec2 p0 = q.p0, p1 = q.p1, p2 = q.p2;
 
-    Vec2 dir = p.end().sub(p.start());
-    Vec2 n = vec(-dir.y, dir.x);
+    // (p0 - 2p1 + p2) t^2 + (-2p0 + 2p1) t + p0
+    double
+      dx = p.bx - p.ax,
+      dy = p.by - p.ay,
+      nx = -dy,
+      ny = dx;
 
     double[] roots = Equations.solveQuadratic(
-      dot(n, a),
-      dot(n, b),
-      dot(n, c) + cross(p.start(), p.end()));
+      Vectors.dot(nx, ny, (p0.x + (p1.x * -2)) + p2.x, (p0.y + (p1.y * -2)) + p2.y),
+      Vectors.dot(nx, ny, (p0.x * -2) + (p1.x * 2), (p0.y * -2) + (p1.y * 2)),
+      Vectors.dot(nx, ny, p0.x, p0.y) + Vectors.cross(p.ax, p.ay, p.bx, p.by));
 
     Vec2[] result = new Vec2[roots.length];
-    if (Scalars.equals(dir.x, 0, EPSILON)) {
-      double y0 = p.start().y;
+    if (Scalars.equals(dx, 0, EPSILON)) {
       for (int i = 0; i < roots.length; i++) {
         double t = roots[i];
-        double y1 = q.position(t).y;
-        result[i] = vec((y1 - y0) / dir.y, t);
+        result[i] = vec((Vectors.quadratic(p0.y, p1.y, p2.y, t) - p.ay) / dy, t);
       }
     } else {
-      double x0 = p.start().x;
       for (int i = 0; i < roots.length; i++) {
         double t = roots[i];
-        double x1 = q.position(t).x;
-        result[i] = vec((x1 - x0) / dir.x, t);
+        result[i] = vec((Vectors.quadratic(p0.x, p1.x, p2.x, t) - p.ax) / dx, t);
       }
     }
 
@@ -624,28 +634,33 @@ public class Intersections {
 
   public static Vec2[] lineCubic(Line2 p, CubicBezier2 q) {
 
-    // (-p0 + 3p1 - 3p2 + p3) t^3 + (3p0 - 6p1 + 3p2) t^2 + (-3p0 + 3p1) t + p0
-    Vec2 a = q.p0.mul(-1).add(q.p1.mul(3)).add(q.p2.mul(-3)).add(q.p3);
-    Vec2 b = q.p0.mul(3).add(q.p1.mul(-6)).add(q.p2.mul(3));
-    Vec2 c = q.p0.mul(-3).add(q.p1.mul(3));
-    Vec2 d = q.p0;
+    Vec2 p0 = q.p0, p1 = q.p1, p2 = q.p2, p3 = q.p3;
 
-    Vec2 dir = p.end().sub(p.start());
-    double dLen = dir.length();
-    Vec2 n = vec(-dir.y, dir.x);
+    // (-p0 + 3p1 - 3p2 + p3) t^3 + (3p0 - 6p1 + 3p2) t^2 + (-3p0 + 3p1) t + p0
+    double
+      dx = p.bx - p.ax,
+      dy = p.by - p.ay,
+      dLen = Vectors.length(dx, dy),
+      nx = -dy,
+      ny = dx;
 
     double[] roots = Equations.solveCubic(
-      dot(n, a),
-      dot(n, b),
-      dot(n, c),
-      dot(n, d) + cross(p.start(), p.end()));
+      Vectors.dot(nx, ny,
+        (((p0.x * -1) + (p1.x * 3)) + (p2.x * -3)) + p3.x,
+        (((p0.y * -1) + (p1.y * 3)) + (p2.y * -3)) + p3.y),
+      Vectors.dot(nx, ny,
+        ((p0.x * 3) + (p1.x * -6)) + (p2.x * 3),
+        ((p0.y * 3) + (p1.y * -6)) + (p2.y * 3)),
+      Vectors.dot(nx, ny, (p0.x * -3) + (p1.x * 3), (p0.y * -3) + (p1.y * 3)),
+      Vectors.dot(nx, ny, p0.x, p0.y) + Vectors.cross(p.ax, p.ay, p.bx, p.by));
 
     Vec2[] result = new Vec2[roots.length];
     for (int i = 0; i < roots.length; i++) {
       double t = roots[i];
-      Vec2 v = q.position(t).sub(p.start());
-      double vLen = v.length();
-      double s = (vLen / dLen) * signum(dot(dir, v));
+      double
+        vx = Vectors.cubic(p0.x, p1.x, p2.x, p3.x, t) - p.ax,
+        vy = Vectors.cubic(p0.y, p1.y, p2.y, p3.y, t) - p.ay,
+        s = (Vectors.length(vx, vy) / dLen) * signum(Vectors.dot(dx, dy, vx, vy));
 
       result[i] = vec(s, t);
     }
@@ -653,6 +668,145 @@ public class Intersections {
     return result;
   }
 
+  // horizontal rays
+
+  /**
+   * The value returned by {@link #rayLine(double, double, double, double, double, double, double)},
+   * {@link #rayQuadratic(double, double, double, double, double, double, double, double, double, double[])}, and
+   * {@link #rayCubic(double, double, double, double, double, double, double, double, double, double, double, double[])}
+   * when the ray is collinear with the curve, and the general-purpose {@link #rayCurve(double, double, double, Curve2,
+   * double[])} must be used instead.
+   */
+  public static final double RAY_COLLINEAR = Double.NEGATIVE_INFINITY;
+
+  /**
+   * An allocation-free equivalent of intersecting {@code line(vec(x, y), vec(xEnd, y))} with {@code c} via
+   * {@link #lineCurve(Line2, Curve2)}, and then rounding and filtering the results to {@link #PARAMETRIC_BOUNDS}.
+   *
+   * @param acc a scratch array with room for at least three roots
+   * @return the smallest rounded parameter along the ray of any remaining intersection, or {@code NaN} if there are
+   * none
+   */
+  public static double rayCurve(double x, double y, double xEnd, Curve2 c, double[] acc) {
+    double result;
+    if (c instanceof Line2) {
+      Line2 l = (Line2) c;
+      result = rayLine(x, y, xEnd, l.ax, l.ay, l.bx, l.by);
+
+    } else if (c instanceof QuadraticBezier2) {
+      QuadraticBezier2 q = (QuadraticBezier2) c;
+      result = rayQuadratic(x, y, xEnd, q.p0.x, q.p0.y, q.p1.x, q.p1.y, q.p2.x, q.p2.y, acc);
+
+    } else if (c instanceof CubicBezier2) {
+      CubicBezier2 q = (CubicBezier2) c;
+      result = rayCubic(x, y, xEnd, q.p0.x, q.p0.y, q.p1.x, q.p1.y, q.p2.x, q.p2.y, q.p3.x, q.p3.y, acc);
+
+    } else {
+      result = RAY_COLLINEAR;
+    }
+
+    // collinear lines are rare enough that we can afford the general-purpose path
+    return result == RAY_COLLINEAR ? rayCurve(x, y, xEnd, c) : result;
+  }
+
+  /**
+   * @return the same as {@link #rayCurve(double, double, double, Curve2, double[])} for a line from {@code [ax, ay]} to
+   * {@code [bx, by]}, or {@link #RAY_COLLINEAR}
+   */
+  public static double rayLine(double x, double y, double xEnd, double ax, double ay, double bx, double by) {
+    double
+      dx = xEnd - x,
+      bvx = bx - ax,
+      bvy = by - ay;
+
+    if (abs(dx * bvy) < 1e-6) {
+      return RAY_COLLINEAR;
+    }
+
+    double t = (y - ay) / bvy;
+    return nearest(Double.NaN, ((ax + (bvx * t)) - x) / dx, t);
+  }
+
+  /**
+   * @return the same as {@link #rayCurve(double, double, double, Curve2, double[])} for a quadratic curve with the
+   * given control points, or {@link #RAY_COLLINEAR}
+   */
+  public static double rayQuadratic(
+    double x, double y, double xEnd,
+    double x0, double y0, double x1, double y1, double x2, double y2,
+    double[] acc) {
+
+    if (abs(Vectors.signedDistance(x1, y1, x0, y0, x2, y2) / 2) < SPATIAL_EPSILON) {
+      return rayLine(x, y, xEnd, x0, y0, x2, y2);
+    }
+
+    // since the ray is horizontal, we only need to solve for y(t) = y
+    // (p0 - 2p1 + p2) t^2 + (-2p0 + 2p1) t + p0
+    int roots = Equations.solveQuadratic(
+      (y0 + (y1 * -2)) + y2,
+      (y0 * -2) + (y1 * 2),
+      y0 - y,
+      acc);
+
+    double dx = xEnd - x, result = Double.NaN;
+    for (int i = 0; i < roots; i++) {
+      double t = acc[i];
+      result = nearest(result, (Vectors.quadratic(x0, x1, x2, t) - x) / dx, t);
+    }
+    return result;
+  }
+
+  /**
+   * @return the same as {@link #rayCurve(double, double, double, Curve2, double[])} for a cubic curve with the given
+   * control points, or {@link #RAY_COLLINEAR}
+   */
+  public static double rayCubic(
+    double x, double y, double xEnd,
+    double x0, double y0, double x1, double y1, double x2, double y2, double x3, double y3,
+    double[] acc) {
+
+    double
+      d1 = Vectors.signedDistance(x1, y1, x0, y0, x3, y3),
+      d2 = Vectors.signedDistance(x2, y2, x0, y0, x3, y3),
+      k = d1 * d2 < 0 ? 4 / 9.0 : 3 / 4.0;
+    if (abs(d1 * k) < SPATIAL_EPSILON && abs(d2 * k) < SPATIAL_EPSILON) {
+      return rayLine(x, y, xEnd, x0, y0, x3, y3);
+    }
+
+    // since the ray is horizontal, we only need to solve for y(t) = y
+    // (-p0 + 3p1 - 3p2 + p3) t^3 + (3p0 - 6p1 + 3p2) t^2 + (-3p0 + 3p1) t + p0
+    int roots = Equations.solveCubic(
+      (((y0 * -1) + (y1 * 3)) + (y2 * -3)) + y3,
+      ((y0 * 3) + (y1 * -6)) + (y2 * 3),
+      (y0 * -3) + (y1 * 3),
+      y0 - y,
+      acc);
+
+    double dx = xEnd - x, result = Double.NaN;
+    for (int i = 0; i < roots; i++) {
+      double t = acc[i];
+      result = nearest(result, (Vectors.cubic(x0, x1, x2, x3, t) - x) / dx, t);
+    }
+    return result;
+  }
+
+  private static double rayCurve(double x, double y, double xEnd, Curve2 c) {
+    double result = Double.NaN;
+    for (Vec2 v : lineCurve(line(vec(x, y), vec(xEnd, y)), c)) {
+      result = nearest(result, v.x, v.y);
+    }
+    return result;
+  }
+
+  private static double nearest(double result, double s, double t) {
+    s = round(s, PARAMETRIC_EPSILON);
+    t = round(t, PARAMETRIC_EPSILON);
+    if (s >= 0 && s <= 1 && t >= 0 && t <= 1 && !(s >= result)) {
+      return s;
+    }
+    return result;
+  }
+
   //
 
   public static Vec2[] intersections(Curve2 a, Curve2 b) {
@@ -0,0 +1,277 @@
+package io.lacuna.artifex.utils;
+
+import io.lacuna.artifex.Affine2;
+import io.lacuna.artifex.FillRule;
+import io.lacuna.artifex.Matrix3;
+import io.lacuna.artifex.Region2;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import static java.lang.Math.*;
+
+/**
+ * A scanline rasterizer which converts a region into an anti-aliased, 8-bit coverage mask.
+ * <p>
+ * The region is flattened into line segments, which are visited in order of their upper endpoint by an active edge
+ * table.  Each row of pixels is sampled by {@link #SUBSAMPLES} evenly spaced scanlines, and along each scanline the
+ * spans which are inside the region, according to its fill rule, are accumulated with exact horizontal coverage.  This
+ * gives analytic anti-aliasing horizontally and {@code SUBSAMPLES} levels of it vertically, and handles overlapping and
+ * self-intersecting rings correctly under either fill rule.
+ */
+public class Rasterizer {
+
+  /**
+   * The number of scanlines sampled within each row of pixels.
+   */
+  public static final int SUBSAMPLES = 16;
+
+  /**
+   * The maximum distance, in pixels, between a curve and the segments which approximate it.
+   */
+  public static final double FLATNESS = 0.05;
+
+  private Rasterizer() {
+  }
+
+  /**
+   * @return a {@code width * height} array of coverage values, as per {@link #rasterize(Region2, Matrix3, int, int, byte[])}
+   */
+  public static byte[] rasterize(Region2 region, Matrix3 transform, int width, int height) {
+    return rasterize(region, transform, width, height, new byte[width * height]);
+  }
+
+  /**
+   * Writes the coverage of each pixel into {@code out}, in row-major order, where 0 is empty and 255 (as an unsigned
+   * byte) is fully covered.  The pixel at [x, y] covers [x, x + 1] and [y, y + 1] after {@code region} has been
+   * transformed by {@code transform}.
+   *
+   * @return {@code out}
+   */
+  public static byte[] rasterize(Region2 region, Matrix3 transform, int width, int height, byte[] out) {
+    if (out.length < width * height) {
+      throw new IllegalArgumentException("out must have at least width * height elements");
+    }
+    new Scanlines(region, transform, width, height).forEachRow((y, row) -> {
+      for (int x = 0; x < width; x++) {
+        out[(y * width) + x] = row[x];
+      }
+    });
+    return out;
+  }
+
+  /**
+   * Equivalent to {@link #rasterize(Region2, Matrix3, int, int, byte[])}, but writes {@code width * height} bytes into
+   * {@code out} at its current position, and advances past them.
+   *
+   * @return {@code out}
+   */
+  public static ByteBuffer rasterize(Region2 region, Matrix3 transform, int width, int height, ByteBuffer out) {
+    if (out.remaining() < width * height) {
+      throw new IllegalArgumentException("out must have at least width * height bytes remaining");
+    }
+    int start = out.position();
+    new Scanlines(region, transform, width, height).forEachRow((y, row) -> {
+      for (int x = 0; x < width; x++) {
+        out.put(start + (y * width) + x, row[x]);
+      }
+    });
+    out.position(start + (width * height));
+    return out;
+  }
+
+  ///
+
+  private interface Row {
+    void accept(int y, byte[] coverage);
+  }
+
+  private static class Scanlines {
+
+    private final int width, height;
+    private final FillRule fillRule;
+
+    // the edges, sorted by the first scanline which crosses them, where each edge goes from [x0, y0] to [y1], and has
+    // a winding of +1 if it originally went downwards
+    private int edges;
+    private double[] x0, y0, y1, slope;
+    private int[] winding, scanline;
+
+    Scanlines(Region2 region, Matrix3 transform, int width, int height) {
+      this.width = width;
+      this.height = height;
+      this.fillRule = region.fillRule();
+
+      Affine2 m = transform.affine();
+
+      // the Frobenius norm bounds how much the transform can stretch the flattening error
+      double scale = sqrt((m.m00 * m.m00) + (m.m01 * m.m01) + (m.m10 * m.m10) + (m.m11 * m.m11));
+      Flattener f = new Flattener(scale > 0 ? FLATNESS / scale : FLATNESS).add(region);
+
+      int n = f.vertices();
+      m.transform(f.coordinates(), 0, n);
+
+      x0 = new double[n];
+      y0 = new double[n];
+      y1 = new double[n];
+      slope = new double[n];
+      winding = new int[n];
+      scanline = new int[n];
+
+      for (int p = 0; p < f.polylines(); p++) {
+        int start = f.offset(p), end = f.offset(p + 1);
+        for (int i = start; i < end; i++) {
+          int j = i + 1 < end ? i + 1 : start;
+          edge(f.x(i), f.y(i), f.x(j), f.y(j));
+        }
+      }
+
+      sortEdges();
+    }
+
+    private void edge(double ax, double ay, double bx, double by) {
+      if (ay == by || max(ay, by) <= 0 || min(ay, by) >= height) {
+        return;
+      }
+
+      int w = ay < by ? 1 : -1;
+      if (w < 0) {
+        double tx = ax, ty = ay;
+        ax = bx;
+        ay = by;
+        bx = tx;
+        by = ty;
+      }
+
+      x0[edges] = ax;
+      y0[edges] = ay;
+      y1[edges] = by;
+      slope[edges] = (bx - ax) / (by - ay);
+      winding[edges] = w;
+
+      // the index of the first scanline at or below ay, where scanline k is at (k + 0.5) / SUBSAMPLES
+      scanline[edges] = (int) max(0, ceil((ay * SUBSAMPLES) - 0.5));
+      edges++;
+    }
+
+    private void sortEdges() {
+      // pack each edge's first scanline and index into a single key, so that we can use a primitive sort
+      long[] order = new long[edges];
+      for (int i = 0; i < edges; i++) {
+        order[i] = ((long) scanline[i] << 32) | i;
+      }
+      Arrays.sort(order);
+
+      double[] x0 = new double[edges], y0 = new double[edges], y1 = new double[edges], slope = new double[edges];
+      int[] winding = new int[edges], scanline = new int[edges];
+      for (int i = 0; i < edges; i++) {
+        int e = (int) order[i];
+        x0[i] = this.x0[e];
+        y0[i] = this.y0[e];
+        y1[i] = this.y1[e];
+        slope[i] = this.slope[e];
+        winding[i] = this.winding[e];
+        scanline[i] = this.scanline[e];
+      }
+
+      this.x0 = x0;
+      this.y0 = y0;
+      this.y1 = y1;
+      this.slope = slope;
+      this.winding = winding;
+      this.scanline = scanline;
+    }
+
+    void forEachRow(Row row) {
+      // partial coverage of each pixel, and the change in full coverage at each pixel
+      float[] area = new float[width + 1];
+      float[] cover = new float[width + 1];
+      byte[] coverage = new byte[width];
+
+      int[] active = new int[edges];
+      int activeCount = 0, next = 0;
+
+      double[] xs = new double[edges];
+      int[] ws = new int[edges];
+
+      float weight = 1f / SUBSAMPLES;
+
+      for (int y = 0; y < height; y++) {
+        Arrays.fill(area, 0);
+        Arrays.fill(cover, 0);
+
+        for (int s = 0; s < SUBSAMPLES; s++) {
+          int k = (y * SUBSAMPLES) + s;
+          double sy = (k + 0.5) / SUBSAMPLES;
+
+          while (next < edges && scanline[next] <= k) {
+            active[activeCount++] = next++;
+          }
+
+          // remove edges we've passed, and find where the rest cross the scanline
+          int crossings = 0;
+          for (int i = 0; i < activeCount; ) {
+            int e = active[i];
+            if (y1[e] <= sy) {
+              active[i] = active[--activeCount];
+              continue;
+            }
+            xs[crossings] = x0[e] + ((sy - y0[e]) * slope[e]);
+            ws[crossings] = winding[e];
+            crossings++;
+            i++;
+          }
+
+          // there are usually only a handful of crossings, so insertion sort is cheap
+          for (int i = 1; i < crossings; i++) {
+            double x = xs[i];
+            int w = ws[i];
+            int j = i - 1;
+            while (j >= 0 && xs[j] > x) {
+              xs[j + 1] = xs[j];
+              ws[j + 1] = ws[j];
+              j--;
+            }
+            xs[j + 1] = x;
+            ws[j + 1] = w;
+          }
+
+          int sum = 0;
+          for (int i = 0; i < crossings - 1; i++) {
+            sum += ws[i];
+            if (fillRule.isInside(sum)) {
+              span(area, cover, xs[i], xs[i + 1], weight);
+            }
+          }
+        }
+
+        float acc = 0;
+        for (int x = 0; x < width; x++) {
+          acc += cover[x];
+          float c = min(1f, abs(acc + area[x]));
+          coverage[x] = (byte) round(c * 255);
+        }
+
+        row.accept(y, coverage);
+      }
+    }
+
+    private void span(float[] area, float[] cover, double a, double b, float weight) {
+      a = max(0, a);
+      b = min(width, b);
+      if (b <= a) {
+        return;
+      }
+
+      int ia = (int) a, ib = (int) b;
+      if (ia == ib) {
+        area[ia] += (float) (b - a) * weight;
+      } else {
+        area[ia] += (float) ((ia + 1) - a) * weight;
+        cover[ia + 1] += weight;
+        cover[ib] -= weight;
+        area[ib] += (float) (b - ib) * weight;
+      }
+    }
+  }
+}
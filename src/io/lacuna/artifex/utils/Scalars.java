@@ -53,18 +53,22 @@ public class Scalars {
     }
   }
 
+  /**
+   * @return a power of two which scales the largest magnitude of the coefficients close to 1, or 1 if they're already
+   * close enough
+   */
   public static double normalizationFactor(double a, double b, double c, double d) {
-    double exponent = getExponent(max(max(a, b), max(c, d)));
+    double exponent = getExponent(max(max(abs(a), abs(b)), max(abs(c), abs(d))));
     return (exponent < -8 || exponent > 8) ? Math.pow(2, -exponent) : 1;
   }
 
   public static double normalizationFactor(double a, double b, double c) {
-    double exponent = getExponent(max(max(a, b), c));
+    double exponent = getExponent(max(max(abs(a), abs(b)), abs(c)));
     return (exponent < -8 || exponent > 8) ? Math.pow(2, -exponent) : 1;
   }
 
   public static double normalizationFactor(double a, double b) {
-    double exponent = getExponent(max(a, b));
+    double exponent = getExponent(max(abs(a), abs(b)));
     return (exponent < -8 || exponent > 8) ? Math.pow(2, -exponent) : 1;
   }
 
@@ -4,15 +4,21 @@ import io.lacuna.bifurcan.ISet;
 import io.lacuna.bifurcan.LinearSet;
 
 import java.util.*;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
 
 import static io.lacuna.artifex.utils.Scalars.EPSILON;
 import static java.lang.Math.*;
 
 /**
- * A quasi-implementation of the plane sweep algorithm.  This will only compare edges which overlap on the x-axis, but
- * does not maintain a sorted tree of the y-axis to ensure only adjacent curves have intersection checks.  This means
- * that this is worst-case O(N ^ 2) rather than O(N log N), but outside of heavy-duty GIS applications I'm not sure this
- * is a real problem.  This may be worth revisiting.
+ * An implementation of the plane sweep algorithm.  Events are ordered along the x-axis, and the active set is kept in a
+ * balanced tree ordered along the y-axis, so that each newly opened value is only compared against active values whose
+ * y-extent overlaps its own.  This makes finding all overlapping pairs O((N + K) log N), where K is the number of pairs
+ * whose bounds actually overlap.
+ * <p>
+ * Unlike a textbook Bentley-Ottmann sweep, we don't reorder the active set at intersection points, and instead treat
+ * every value as the box it occupies.  This is less tight than only checking adjacent curves, but it's robust in the
+ * face of shared endpoints, tangencies, and collinear overlaps, none of which are rare in our inputs.
  *
  * @author ztellman
  */
@@ -34,20 +40,180 @@ public class SweepQueue<T> {
     public final double key;
     public final T value;
     public final int type;
+    final Node<T> node;
 
-    Event(double key, T value, int type) {
+    Event(double key, T value, int type, Node<T> node) {
       this.key = key;
       this.value = value;
       this.type = type;
+      this.node = node;
     }
   }
 
+  /**
+   * A node in an AVL tree ordered by the lower y-bound, augmented with the maximum upper y-bound in its subtree.
+   */
+  static class Node<T> {
+    final double lo, hi;
+    final long seq;
+    final T value;
+
+    Node<T> left, right;
+    int height = 1;
+    double max;
+
+    Node(double lo, double hi, long seq, T value) {
+      this.lo = lo;
+      this.hi = hi;
+      this.seq = seq;
+      this.value = value;
+      this.max = hi;
+    }
+
+    int compareTo(Node<T> n) {
+      if (lo != n.lo) {
+        return lo < n.lo ? -1 : 1;
+      }
+      return Long.compare(seq, n.seq);
+    }
+  }
+
+  private static <T> int height(Node<T> n) {
+    return n == null ? 0 : n.height;
+  }
+
+  private static <T> Node<T> update(Node<T> n) {
+    n.height = 1 + Math.max(height(n.left), height(n.right));
+    double max = n.hi;
+    if (n.left != null && n.left.max > max) {
+      max = n.left.max;
+    }
+    if (n.right != null && n.right.max > max) {
+      max = n.right.max;
+    }
+    n.max = max;
+    return n;
+  }
+
+  private static <T> Node<T> rotateLeft(Node<T> n) {
+    Node<T> r = n.right;
+    n.right = r.left;
+    r.left = update(n);
+    return update(r);
+  }
+
+  private static <T> Node<T> rotateRight(Node<T> n) {
+    Node<T> l = n.left;
+    n.left = l.right;
+    l.right = update(n);
+    return update(l);
+  }
+
+  private static <T> Node<T> balance(Node<T> n) {
+    update(n);
+    int diff = height(n.left) - height(n.right);
+    if (diff > 1) {
+      if (height(n.left.left) < height(n.left.right)) {
+        n.left = rotateLeft(n.left);
+      }
+      return rotateRight(n);
+    } else if (diff < -1) {
+      if (height(n.right.right) < height(n.right.left)) {
+        n.right = rotateRight(n.right);
+      }
+      return rotateLeft(n);
+    }
+    return n;
+  }
+
+  private static <T> Node<T> insert(Node<T> root, Node<T> n) {
+    if (root == null) {
+      return n;
+    }
+
+    if (n.compareTo(root) < 0) {
+      root.left = insert(root.left, n);
+    } else {
+      root.right = insert(root.right, n);
+    }
+    return balance(root);
+  }
+
+  private static <T> Node<T> removeMin(Node<T> root) {
+    if (root.left == null) {
+      return root.right;
+    }
+    root.left = removeMin(root.left);
+    return balance(root);
+  }
+
+  private static <T> Node<T> remove(Node<T> root, Node<T> n) {
+    if (root == null) {
+      return null;
+    }
+
+    int cmp = n.compareTo(root);
+    if (cmp < 0) {
+      root.left = remove(root.left, n);
+    } else if (cmp > 0) {
+      root.right = remove(root.right, n);
+    } else {
+      if (root.left == null) {
+        return root.right;
+      } else if (root.right == null) {
+        return root.left;
+      }
+
+      Node<T> successor = root.right;
+      while (successor.left != null) {
+        successor = successor.left;
+      }
+      Node<T> right = removeMin(root.right);
+      successor.left = root.left;
+      successor.right = right;
+      root.left = root.right = null;
+      return balance(successor);
+    }
+    return balance(root);
+  }
+
+  private static <T> void overlapping(Node<T> n, double lo, double hi, Consumer<T> f) {
+    while (n != null && n.max >= lo) {
+      overlapping(n.left, lo, hi, f);
+
+      // everything to the right starts above our upper bound
+      if (n.lo > hi) {
+        return;
+      }
+
+      if (n.hi >= lo) {
+        f.accept(n.value);
+      }
+      n = n.right;
+    }
+  }
+
+  ///
+
   private final PriorityQueue<Event<T>> queue = new PriorityQueue<>(Event.COMPARATOR);
   private final ISet<T> set = new LinearSet<>();
+  private Node<T> root = null;
+  private long seq = 0;
 
+  /**
+   * Adds a value which occupies [a, b] along the x-axis, and every point on the y-axis.
+   */
   public void add(T value, double a, double b) {
-    queue.add(new Event<>(min(a, b) - EPSILON, value, OPEN));
-    queue.add(new Event<>(max(a, b) + EPSILON, value, CLOSED));
+    add(value, a, b, Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY);
+  }
+
+  /**
+   * Adds a value which occupies [xa, xb] along the x-axis, and [ya, yb] along the y-axis.
+   */
+  public void add(T value, double xa, double xb, double ya, double yb) {
+    Node<T> node = new Node<>(min(ya, yb) - EPSILON, max(ya, yb) + EPSILON, seq++, value);
+    queue.add(new Event<>(min(xa, xb) - EPSILON, value, OPEN, node));
+    queue.add(new Event<>(max(xa, xb) + EPSILON, value, CLOSED, node));
   }
 
   public double peek() {
@@ -58,6 +224,7 @@ public class SweepQueue<T> {
     return Event.COMPARATOR.compare(a.queue.peek(), b.queue.peek());
   }
 
+  @SafeVarargs
   public static <T> int next(SweepQueue<T>... queues) {
     for (; ; ) {
       int minIdx = 0;
@@ -84,23 +251,76 @@ public class SweepQueue<T> {
 
     if (e.type == CLOSED) {
       set.remove(e.value);
+      root = remove(root, e.node);
     } else {
       set.add(e.value);
+      root = insert(root, e.node);
     }
     return e;
   }
 
-  public T take() {
+  private Event<T> takeEvent() {
     while (!queue.isEmpty()) {
       Event<T> e = next();
       if (e.type == OPEN) {
-        return e.value;
+        return e;
       }
     }
     return null;
   }
 
+  public T take() {
+    Event<T> e = takeEvent();
+    return e == null ? null : e.value;
+  }
+
   public ISet<T> active() {
     return set;
   }
+
+  /**
+   * Invokes {@code f} on every active value whose y-extent overlaps [lo, hi].
+   */
+  public void active(double lo, double hi, Consumer<T> f) {
+    overlapping(root, lo, hi, f);
+  }
+
+  /**
+   * Invokes {@code f} on every pair of values whose bounds overlap, where the first value is from {@code a} and the
+   * second from {@code b}.  Both queues are fully consumed.
+   */
+  public static <T> void overlapping(SweepQueue<T> a, SweepQueue<T> b, BiConsumer<T, T> f) {
+    for (; ; ) {
+      int idx = next(a, b);
+      Event<T> e = (idx == 0 ? a : b).takeEvent();
+      if (e == null) {
+        break;
+      }
+
+      if (idx == 0) {
+        b.active(e.node.lo, e.node.hi, t -> f.accept(e.value, t));
+      } else {
+        a.active(e.node.lo, e.node.hi, t -> f.accept(t, e.value));
+      }
+    }
+  }
+
+  /**
+   * Invokes {@code f} once on every unordered pair of distinct values whose bounds overlap.  The queue is fully
+   * consumed.
+   */
+  public static <T> void overlapping(SweepQueue<T> queue, BiConsumer<T, T> f) {
+    for (; ; ) {
+      Event<T> e = queue.takeEvent();
+      if (e == null) {
+        break;
+      }
+
+      queue.active(e.node.lo, e.node.hi, t -> {
+        if (t != e.value) {
+          f.accept(t, e.value);
+        }
+      });
+    }
+  }
 }
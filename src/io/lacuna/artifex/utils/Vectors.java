@@ -0,0 +1,138 @@
+package io.lacuna.artifex.utils;
+
+/**
+ * Static kernels over two-dimensional coordinates, which take and return primitive values rather than {@link
+ * io.lacuna.artifex.Vec2}.  These are meant for inner loops, where allocating an intermediate vector for each step of
+ * a calculation can dominate the cost of the arithmetic itself.
+ * <p>
+ * Each kernel performs its operations in the same order as its counterpart on {@code Vec2}, and so gives identical
+ * results.
+ */
+public class Vectors {
+
+  private Vectors() {
+  }
+
+  public static double dot(double ax, double ay, double bx, double by) {
+    return (ax * bx) + (ay * by);
+  }
+
+  public static double cross(double ax, double ay, double bx, double by) {
+    return (ax * by) - (ay * bx);
+  }
+
+  public static double lengthSquared(double x, double y) {
+    return (x * x) + (y * y);
+  }
+
+  public static double length(double x, double y) {
+    return Math.sqrt(lengthSquared(x, y));
+  }
+
+  /**
+   * @return true if each coordinate of {@code a} is within {@code tolerance} of {@code b}
+   */
+  public static boolean equals(double ax, double ay, double bx, double by, double tolerance) {
+    return Math.abs(ax - bx) <= tolerance && Math.abs(ay - by) <= tolerance;
+  }
+
+  /**
+   * @return the signed distance of {@code p} from the line passing through {@code a} and {@code b}
+   */
+  public static double signedDistance(double px, double py, double ax, double ay, double bx, double by) {
+    double dx = bx - ax, dy = by - ay;
+    return (cross(px, py, dx, dy) + cross(bx, by, ax, ay)) / length(dx, dy);
+  }
+
+  /**
+   * @return true if the bounding boxes of the segments {@code [a0, a1]} and {@code [b0, b1]} intersect, once the first
+   * has been expanded by {@code epsilon}
+   */
+  public static boolean overlaps(
+    double ax0, double ay0, double ax1, double ay1,
+    double bx0, double by0, double bx1, double by1,
+    double epsilon) {
+
+    return max(bx0, bx1) >= min(ax0, ax1) - epsilon
+      && max(ax0, ax1) + epsilon >= min(bx0, bx1)
+      && max(by0, by1) >= min(ay0, ay1) - epsilon
+      && max(ay0, ay1) + epsilon >= min(by0, by1);
+  }
+
+  /**
+   * @return a single coordinate of the quadratic Bezier curve with control values {@code p0}, {@code p1}, and {@code
+   * p2} at {@code t}
+   */
+  public static double quadratic(double p0, double p1, double p2, double t) {
+    if (t == 0) {
+      return p0;
+    } else if (t == 1) {
+      return p2;
+    }
+
+    double mt = 1 - t;
+
+    // (1 - t)^2 * p0 + 2t(1 - t) * p1 + t^2 * p2;
+    return ((p0 * (mt * mt)) + (p1 * (2 * t * mt))) + (p2 * (t * t));
+  }
+
+  /**
+   * @return a single coordinate of the cubic Bezier curve with control values {@code p0} through {@code p3} at {@code t}
+   */
+  public static double cubic(double p0, double p1, double p2, double p3, double t) {
+    if (t == 0) {
+      return p0;
+    } else if (t == 1) {
+      return p3;
+    }
+
+    double mt = 1 - t;
+    double mt2 = mt * mt;
+    double t2 = t * t;
+
+    // (1 - t)^3 * p0 + 3t(1 - t)^2 * p1 + 3(1 - t)t^2 * p2 + t^3 * p3;
+    return (((p0 * (mt2 * mt)) + (p1 * (3 * mt2 * t))) + (p2 * (3 * mt * t2))) + (p3 * (t2 * t));
+  }
+
+  /**
+   * @return the signed area between the origin and the line from {@code [x0, y0]} to {@code [x1, y1]}, which when
+   * summed over a closed ring yields the ring's signed area
+   */
+  public static double lineArea(double x0, double y0, double x1, double y1) {
+    return ((x0 * y1) - (x1 * y0)) / 2;
+  }
+
+  /**
+   * @return the signed area between the origin and the quadratic Bezier curve with the given control points, as per
+   * {@link #lineArea(double, double, double, double)}
+   */
+  public static double quadraticArea(double x0, double y0, double x1, double y1, double x2, double y2) {
+    return ((x2 * (-y0 - (2 * y1)))
+      + (2 * x1 * (y2 - y0))
+      + (x0 * ((2 * y1) + y2))) / 6;
+  }
+
+  /**
+   * @return the signed area between the origin and the cubic Bezier curve with the given control points, as per
+   * {@link #lineArea(double, double, double, double)}
+   */
+  public static double cubicArea(
+    double x0, double y0, double x1, double y1,
+    double x2, double y2, double x3, double y3) {
+
+    return ((x3 * (-y0 - (3 * y1) - (6 * y2)))
+      - (3 * x2 * (y0 + y1 - (2 * y3)))
+      + (3 * x1 * ((-2 * y0) + y2 + y3))
+      + (x0 * ((6 * y1) + (3 * y2) + y3))) / 20;
+  }
+
+  //
+
+  private static double min(double a, double b) {
+    return a < b ? a : b;
+  }
+
+  private static double max(double a, double b) {
+    return a > b ? a : b;
+  }
+}
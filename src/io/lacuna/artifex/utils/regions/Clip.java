@@ -3,16 +3,20 @@ package io.lacuna.artifex.utils.regions;
 import io.lacuna.artifex.*;
 import io.lacuna.artifex.Ring2.Result;
 import io.lacuna.artifex.utils.Combinatorics;
+import io.lacuna.artifex.utils.Intersections;
+import io.lacuna.artifex.utils.SweepQueue;
 import io.lacuna.bifurcan.*;
 
+import java.util.Arrays;
 import java.util.Comparator;
-import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
 import java.util.function.BiFunction;
 import java.util.function.BinaryOperator;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
-import static java.lang.Math.abs;
 
 public class Clip {
 
@@ -37,9 +41,7 @@ public class Clip {
    */
   private final static class Arc extends LinearList<Curve2> {
 
-    private double
-      length = Double.NaN,
-      area = Double.NaN;
+    private double length = Double.NaN;
 
     double length() {
       if (Double.isNaN(length)) {
@@ -85,13 +87,6 @@ public class Clip {
       return result;
     }
 
-    double signedArea() {
-      if (Double.isNaN(area)) {
-        area = stream().mapToDouble(Curve2::signedArea).sum();
-      }
-      return area;
-    }
-
     @Override
     public int hashCode() {
       return System.identityHashCode(this);
@@ -103,14 +98,6 @@ public class Clip {
     }
   }
 
-  private static double area(IList<Arc> arcs) {
-    return abs(arcs.stream().mapToDouble(Arc::signedArea).sum());
-  }
-
-  private static double length(IList<Arc> arcs) {
-    return abs(arcs.stream().mapToDouble(Arc::length).sum());
-  }
-
   private static Ring2 ring(IList<Arc> arcs) {
     IList<Curve2> acc = new LinearList<>();
     arcs.forEach(arc -> arc.forEach(acc::addLast));
@@ -148,6 +135,17 @@ public class Clip {
     DIFF_EDGE
   }
 
+  /**
+   * Every arc of an operand is assumed to separate its inside from its outside, which only holds if its rings don't
+   * overlap.  Regions which use {@link FillRule#NON_ZERO} are typically imported paths and glyphs whose rings do, so
+   * they're rejected rather than silently mishandled.
+   */
+  private static void checkFillRule(Region2 region) {
+    if (region.fillRule != FillRule.EVEN_ODD) {
+      throw new IllegalArgumentException("boolean operations require the EVEN_ODD fill rule, not " + region.fillRule);
+    }
+  }
+
   private static boolean isTop(Curve2 c) {
     if (c == null) {
       return false;
@@ -216,23 +214,6 @@ public class Clip {
     return result;
   }
 
-  public static IList<IList<Arc>> greedyPairing(IGraph<Vec2, Arc> graph, IList<Vec2> out, ISet<Vec2> in) {
-    IList<IList<Arc>> result = new LinearList<>();
-
-    ISet<Vec2> remaining = LinearSet.from(in);
-    for (Vec2 v : out) {
-      IList<Vec2> path = Graphs.shortestPath(graph, v, remaining::contains, e -> e.value().length()).orElse(null);
-      if (path == null) {
-        return null;
-      }
-
-      remaining.remove(path.last());
-      result.addLast(edges(path, graph::edge));
-    }
-
-    return result;
-  }
-
   public static IList<IList<Arc>> repairGraph(IGraph<Vec2, ISet<Arc>> graph, Iterable<Arc> unused) {
 
     // create a graph of all the unused arcs
@@ -278,18 +259,96 @@ public class Clip {
       return result;
     }
 
-    // do greedy pairings with every possible vertex ordering, and choose the one that results in the shortest aggregate
-    // paths
-    return Combinatorics.permutations(out.elements())
-      .stream()
-      .map(vs -> greedyPairing(search, vs, in))
-      .filter(Objects::nonNull)
-      .min(Comparator.comparingDouble(paths -> paths.stream().mapToDouble(Clip::length).sum()))
-      .get();
+    // otherwise, find the pairing of srcs and dsts which minimizes the aggregate path length
+    return minimumPairing(search, out.elements(), in.elements());
+  }
+
+  /**
+   * Pairs each vertex in {@code out} with a distinct vertex in {@code in}, such that the total length of the shortest
+   * paths between each pair is minimized.  Vertices which can't reach any unclaimed vertex are left unpaired.
+   */
+  private static IList<IList<Arc>> minimumPairing(IGraph<Vec2, Arc> graph, IList<Vec2> out, IList<Vec2> in) {
+    int rows = (int) out.size(), cols = (int) in.size();
+    IList<IMap<Vec2, Vec2>> parents = new LinearList<>(rows);
+    double[][] costs = new double[rows][cols];
+
+    // unreachable pairs are given a cost greater than any combination of reachable pairs
+    double max = 0;
+    for (int i = 0; i < rows; i++) {
+      IMap<Vec2, Double> distances = new LinearMap<>();
+      parents.addLast(shortestPaths(graph, out.nth(i), distances));
+      for (int j = 0; j < cols; j++) {
+        costs[i][j] = distances.get(in.nth(j), Double.POSITIVE_INFINITY);
+        if (costs[i][j] < Double.POSITIVE_INFINITY) {
+          max += costs[i][j];
+        }
+      }
+    }
+
+    double unreachable = (max + 1) * (rows + 1);
+    for (double[] row : costs) {
+      for (int j = 0; j < cols; j++) {
+        if (row[j] == Double.POSITIVE_INFINITY) {
+          row[j] = unreachable;
+        }
+      }
+    }
+
+    IList<IList<Arc>> result = new LinearList<>();
+    int[] matching = Combinatorics.minimumCostMatching(costs);
+    for (int i = 0; i < rows; i++) {
+      int j = matching[i];
+      if (j < 0 || costs[i][j] == unreachable) {
+        continue;
+      }
+
+      IList<Vec2> path = new LinearList<>();
+      for (Vec2 v = in.nth(j); v != null; v = parents.nth(i).get(v, null)) {
+        path.addFirst(v);
+      }
+      result.addLast(edges(path, graph::edge));
+    }
+
+    return result;
+  }
+
+  /**
+   * Performs Dijkstra's algorithm from {@code src}, populating {@code distances} with the length of the shortest path to
+   * each reachable vertex.
+   *
+   * @return a map of each reachable vertex onto its predecessor along the shortest path
+   */
+  private static IMap<Vec2, Vec2> shortestPaths(IGraph<Vec2, Arc> graph, Vec2 src, IMap<Vec2, Double> distances) {
+    IMap<Vec2, Vec2> parents = new LinearMap<>();
+    PriorityQueue<IEntry<Vec2, Double>> queue = new PriorityQueue<>(Comparator.comparingDouble(IEntry::value));
+
+    distances.put(src, 0.0);
+    queue.add(new Maps.Entry<>(src, 0.0));
+    while (!queue.isEmpty()) {
+      IEntry<Vec2, Double> e = queue.poll();
+      Vec2 v = e.key();
+      if (e.value() > distances.get(v).get()) {
+        continue;
+      }
+
+      for (Vec2 w : graph.out(v)) {
+        double d = e.value() + graph.edge(v, w).length();
+        if (d < distances.get(w, Double.POSITIVE_INFINITY)) {
+          distances.put(w, d);
+          parents.put(w, v);
+          queue.add(new Maps.Entry<>(w, d));
+        }
+      }
+    }
+
+    return parents;
   }
 
   public static Region2 operation(Region2 ra, Region2 rb, Operation operation, Predicate<Type> aPredicate, Predicate<Type> bPredicate) {
 
+    checkFillRule(ra);
+    checkFillRule(rb);
+
     Split.Result split = Split.split(ra, rb);
     Region2 a = split.a;
     Region2 b = split.b;
@@ -316,21 +375,30 @@ public class Clip {
     //describe("arcs", arcs.elements().stream().map(Arc::vertices).toArray(IList[]::new));
     //VERTICES.forEach(v -> System.out.println(VERTICES.indexOf(v) + " " + v));
 
+    return extract(arcs, pa.concat(pb));
+  }
+
+  /**
+   * Assembles the selected {@code arcs} into rings, using the rest of {@code partitions} to repair any gaps left behind
+   * by imprecise intersections.
+   */
+  private static Region2 extract(ISet<Arc> arcs, IList<Arc> partitions) {
+
     IList<Ring2> result = new LinearList<>();
     ISet<Arc> consumed = new LinearSet<>();
 
-    // First we're going to extract a cycle, and on the second go-around we'll try to "repair" the remaining edges, and
+    // First we're going to extract cycles, and on the second go-around we'll try to "repair" the remaining edges, and
     // extract any additional cycles we create in the process.
     for (int i = 0; i < 2; i++) {
 
-      // Construct a graph where the edges are the set of all arcs connecting the vertices
-      IGraph<Vec2, ISet<Arc>> graph = new DirectedGraph<Vec2, ISet<Arc>>().linear();
-      arcs.forEach(arc -> graph.link(arc.head(), arc.tail(), LinearSet.of(arc), ISet::union));
+      if (i == 1) {
+        // Construct a graph where the edges are the set of all arcs connecting the vertices
+        IGraph<Vec2, ISet<Arc>> graph = new DirectedGraph<Vec2, ISet<Arc>>().linear();
+        arcs.forEach(arc -> graph.link(arc.head(), arc.tail(), LinearSet.of(arc), ISet::union));
 
-      //graph.vertices().forEach(v -> System.out.println(VERTICES.indexOf(v) + " " + graph.out(v).stream().map(VERTICES::indexOf).collect(Lists.linearCollector())));
+        //graph.vertices().forEach(v -> System.out.println(VERTICES.indexOf(v) + " " + graph.out(v).stream().map(VERTICES::indexOf).collect(Lists.linearCollector())));
 
-      if (i == 1) {
-        for (IList<Arc> path : repairGraph(graph, LinearSet.from(pa.concat(pb)).difference(arcs).difference(consumed))) {
+        for (IList<Arc> path : repairGraph(graph, LinearSet.from(partitions).difference(arcs).difference(consumed))) {
           for (Arc arc : path) {
             // if the graph currently contains the arc, remove it
             if (arcs.contains(arc)) {
@@ -348,26 +416,7 @@ public class Clip {
         }
       }
 
-      // find every cycle in the graph, and then expand those cycles into every possible arc combination, yielding a bunch
-      // of rings ordered from largest to smallest
-      IList<IList<Arc>> cycles = Graphs.cycles(graph)
-        .stream()
-        .map(cycle -> edges(cycle, (x, y) -> graph.edge(x, y).elements()))
-        .map(Combinatorics::combinations)
-        .flatMap(IList::stream)
-        .sorted(Comparator.comparingDouble(Clip::area).reversed())
-        .collect(Lists.linearCollector());
-
-      // extract as many cycles as possible without using the same arc twice
-      for (IList<Arc> cycle : cycles) {
-        //describe("cycle", cycle.stream().map(Arc::vertices).toArray(IList[]::new));
-        if (cycle.stream().anyMatch(consumed::contains)) {
-          continue;
-        }
-
-        cycle.forEach(consumed::add);
-        result.addLast(ring(cycle));
-      }
+      traverse(arcs, consumed, result);
 
       arcs = arcs.difference(consumed);
 
@@ -379,6 +428,147 @@ public class Clip {
     return new Region2(result);
   }
 
+  /**
+   * Walks the faces of the graph formed by {@code arcs}, adding each closed ring to {@code result} and its arcs to
+   * {@code consumed}.  Every arc is only traversed once, and at each vertex we take the unconsumed outgoing arc which
+   * turns furthest to the left, which keeps the interior of each ring on its left and separates rings which only touch
+   * at a vertex.  Walks which reach a dead end are abandoned, leaving their arcs for {@link #repairGraph}.
+   */
+  private static void traverse(ISet<Arc> arcs, ISet<Arc> consumed, IList<Ring2> result) {
+    IMap<Vec2, IList<Arc>> outgoing = new LinearMap<>();
+    for (Arc arc : arcs) {
+      if (!consumed.contains(arc)) {
+        outgoing.getOrCreate(arc.head(), LinearList::new).addLast(arc);
+      }
+    }
+
+    for (Arc start : arcs) {
+      if (consumed.contains(start)) {
+        continue;
+      }
+
+      // the arcs visited by this walk, which are only consumed once they're part of a closed ring, so that an abandoned
+      // walk doesn't prevent a later walk from using them
+      ISet<Arc> walked = new LinearSet<>();
+
+      // the index in the path where each vertex was departed
+      IMap<Vec2, Integer> departures = new LinearMap<>();
+      IList<Arc> path = new LinearList<>();
+      Arc arc = start;
+
+      while (arc != null) {
+        departures.put(arc.head(), (int) path.size());
+        path.addLast(arc);
+        walked.add(arc);
+
+        // if we've returned to a vertex on the path, peel off the loop we've just closed
+        Vec2 v = arc.tail();
+        int idx = departures.get(v, -1);
+        if (idx >= 0) {
+          IList<Arc> cycle = LinearList.from(path.slice(idx, path.size()));
+          for (Arc a : cycle) {
+            consumed.add(a);
+            departures.remove(a.head());
+          }
+          result.addLast(ring(cycle));
+
+          while (path.size() > idx) {
+            path.removeLast();
+          }
+          if (path.size() == 0) {
+            break;
+          }
+        }
+
+        arc = next(outgoing.get(v, null), path.last(), consumed, walked);
+      }
+    }
+  }
+
+  /**
+   * Outgoing arcs whose angles are within this tolerance leave in the same direction, and are ordered by curvature.
+   */
+  private static final double ANGLE_EPSILON = 1e-9;
+
+  /**
+   * @return the unvisited arc in {@code candidates} which turns furthest to the left relative to {@code incoming}, or
+   * null if there are none.  Where several arcs leave in the same direction, the one which curves furthest to the left
+   * is chosen.
+   */
+  private static Arc next(IList<Arc> candidates, Arc incoming, ISet<Arc> consumed, ISet<Arc> walked) {
+    if (candidates == null) {
+      return null;
+    }
+
+    // the angle of the reversed incoming direction, from which we sweep clockwise
+    Vec2 in = arriving(incoming);
+    double origin = Math.atan2(-in.y, -in.x);
+
+    Arc result = null;
+    double minAngle = Double.POSITIVE_INFINITY, maxCurvature = Double.NEGATIVE_INFINITY;
+    for (Arc arc : candidates) {
+      if (consumed.contains(arc) || walked.contains(arc)) {
+        continue;
+      }
+
+      Vec2 out = leaving(arc);
+      double angle = origin - Math.atan2(out.y, out.x);
+      while (angle <= 0) {
+        angle += Math.PI * 2;
+      }
+
+      if (angle < minAngle - ANGLE_EPSILON) {
+        minAngle = angle;
+        maxCurvature = curvature(arc);
+        result = arc;
+      } else if (angle <= minAngle + ANGLE_EPSILON) {
+        double curvature = curvature(arc);
+        if (curvature > maxCurvature) {
+          minAngle = Math.min(angle, minAngle);
+          maxCurvature = curvature;
+          result = arc;
+        }
+      }
+    }
+
+    return result;
+  }
+
+  /**
+   * @return the signed curvature of {@code arc} where it leaves its head, which is positive if it turns to the left
+   */
+  private static double curvature(Arc arc) {
+    Curve2 c = arc.first();
+
+    // the second derivative at t=0
+    Vec2 d2;
+    if (c instanceof Bezier2.QuadraticBezier2) {
+      Bezier2.QuadraticBezier2 q = (Bezier2.QuadraticBezier2) c;
+      d2 = q.p0.sub(q.p1.mul(2)).add(q.p2).mul(2);
+    } else if (c instanceof Bezier2.CubicBezier2) {
+      Bezier2.CubicBezier2 q = (Bezier2.CubicBezier2) c;
+      d2 = q.p0.sub(q.p1.mul(2)).add(q.p2).mul(6);
+    } else {
+      return 0;
+    }
+
+    Vec2 d1 = c.direction(0);
+    double length = d1.length();
+    return length == 0 ? 0 : Vec2.cross(d1, d2) / (length * length * length);
+  }
+
+  private static Vec2 leaving(Arc arc) {
+    Curve2 c = arc.first();
+    Vec2 d = c.direction(0);
+    return Vec.equals(d, Vec2.ORIGIN, Intersections.SPATIAL_EPSILON) ? c.position(0.5).sub(c.start()) : d;
+  }
+
+  private static Vec2 arriving(Arc arc) {
+    Curve2 c = arc.last();
+    Vec2 d = c.direction(1);
+    return Vec.equals(d, Vec2.ORIGIN, Intersections.SPATIAL_EPSILON) ? c.end().sub(c.position(0.5)) : d;
+  }
+
   ///
 
   public static Region2 union(Region2 a, Region2 b) {
@@ -395,6 +585,229 @@ public class Clip {
       t -> t == Type.INSIDE);
   }
 
+  /**
+   * Returns the union of all {@code regions}.  Rather than folding {@link #union(Region2, Region2)} over the regions,
+   * which re-splits and re-classifies the accumulated result against each new region, this splits every region against
+   * every other in a single sweep, and keeps each arc only if no other region covers it.
+   */
+  public static Region2 union(Iterable<Region2> regions) {
+    return operation(regions, Operation.UNION);
+  }
+
+  /**
+   * Returns the intersection of all {@code regions}, computed in a single pass in the same manner as
+   * {@link #union(Iterable)}.
+   */
+  public static Region2 intersection(Iterable<Region2> regions) {
+    return operation(regions, Operation.INTERSECTION);
+  }
+
+  /**
+   * Returns the union of all {@code regions}, computed on {@code pool}.  The regions are first grouped into clusters
+   * whose bounds transitively overlap, and clusters are combined without any clipping.  Within each cluster, the
+   * regions are ordered along the x-axis and recursively halved, with the halves merged via
+   * {@link #union(Region2, Region2)}.
+   */
+  public static Region2 union(Iterable<Region2> regions, ForkJoinPool pool) {
+    IList<Region2> inputs = new LinearList<>();
+    for (Region2 r : regions) {
+      checkFillRule(r);
+      if (r.rings.length > 0) {
+        inputs.addLast(r);
+      }
+    }
+
+    IList<UnionTask> tasks = new LinearList<>();
+    for (IList<Region2> cluster : clusters(inputs)) {
+      Region2[] rs = cluster.toArray(Region2[]::new);
+      Arrays.sort(rs, Comparator.comparingDouble(r -> r.bounds.lx));
+      UnionTask task = new UnionTask(rs, 0, rs.length);
+      pool.execute(task);
+      tasks.addLast(task);
+    }
+
+    return combine(tasks.stream().map(UnionTask::join).toArray(Region2[]::new));
+  }
+
+  @SuppressWarnings("serial")
+  private static class UnionTask extends RecursiveTask<Region2> {
+    private final Region2[] regions;
+    private final int start, end;
+
+    UnionTask(Region2[] regions, int start, int end) {
+      this.regions = regions;
+      this.start = start;
+      this.end = end;
+    }
+
+    @Override
+    protected Region2 compute() {
+      if (end - start == 1) {
+        return regions[start];
+      }
+
+      int mid = (start + end) >>> 1;
+      UnionTask lower = new UnionTask(regions, start, mid);
+      UnionTask upper = new UnionTask(regions, mid, end);
+      upper.fork();
+      Region2 a = lower.compute();
+      Region2 b = upper.join();
+
+      return a.bounds.intersects(b.bounds)
+        ? union(a, b)
+        : combine(a, b);
+    }
+  }
+
+  /**
+   * Concatenates the rings of regions which are known not to overlap.
+   */
+  private static Region2 combine(Region2... regions) {
+    IList<Ring2> rings = new LinearList<>();
+    for (Region2 r : regions) {
+      for (Ring2 ring : r.rings) {
+        rings.addLast(ring);
+      }
+    }
+    return new Region2(rings);
+  }
+
+  /**
+   * Partitions the regions into clusters whose bounds transitively overlap, so that no region in one cluster can
+   * intersect a region in another.
+   */
+  private static IList<IList<Region2>> clusters(IList<Region2> regions) {
+    int[] parent = new int[(int) regions.size()];
+    for (int i = 0; i < parent.length; i++) {
+      parent[i] = i;
+    }
+
+    SweepQueue<Integer> queue = new SweepQueue<>();
+    for (int i = 0; i < parent.length; i++) {
+      Box2 b = regions.nth(i).bounds;
+      queue.add(i, b.lx, b.ux, b.ly, b.uy);
+    }
+
+    SweepQueue.overlapping(queue, (a, b) -> {
+      int ra = root(parent, a);
+      int rb = root(parent, b);
+      if (ra != rb) {
+        parent[Math.max(ra, rb)] = Math.min(ra, rb);
+      }
+    });
+
+    IMap<Integer, IList<Region2>> clusters = new LinearMap<>();
+    for (int i = 0; i < parent.length; i++) {
+      clusters.getOrCreate(root(parent, i), LinearList::new).addLast(regions.nth(i));
+    }
+    return clusters.values();
+  }
+
+  private static int root(int[] parent, int idx) {
+    while (parent[idx] != idx) {
+      parent[idx] = parent[parent[idx]];
+      idx = parent[idx];
+    }
+    return idx;
+  }
+
+  private static Region2 operation(Iterable<Region2> regions, Operation operation) {
+    IList<Region2> inputs = new LinearList<>();
+    for (Region2 r : regions) {
+      checkFillRule(r);
+      if (r.rings.length > 0) {
+        inputs.addLast(r);
+      } else if (operation == Operation.INTERSECTION) {
+        return new Region2(new Ring2[0]);
+      }
+    }
+
+    if (inputs.size() == 0) {
+      return new Region2(new Ring2[0]);
+    } else if (inputs.size() == 1) {
+      return inputs.first();
+    }
+
+    Split.Result split = Split.split(inputs.toArray(Region2[]::new));
+    Region2[] rs = split.regions;
+
+    Box2[] bounds = new Box2[rs.length];
+    for (int i = 0; i < rs.length; i++) {
+      bounds[i] = rs[i].bounds.expand(Intersections.SPATIAL_EPSILON);
+    }
+    int[][] neighbors = neighbors(bounds);
+
+    IList<Arc> partitions = new LinearList<>();
+    ISet<Arc> arcs = new LinearSet<>();
+    for (int i = 0; i < rs.length; i++) {
+      // an intersection can only include arcs from a region which overlaps every other region
+      boolean candidate = operation != Operation.INTERSECTION || neighbors[i].length == rs.length - 1;
+      for (Arc arc : partition(rs[i], split.splits)) {
+        partitions.addLast(arc);
+        if (candidate && include(rs, bounds, neighbors[i], i, arc, operation)) {
+          arcs.add(arc);
+        }
+      }
+    }
+
+    return extract(arcs, partitions);
+  }
+
+  /**
+   * @return for each box, the indices of the other boxes which it overlaps
+   */
+  private static int[][] neighbors(Box2[] bounds) {
+    IList<IList<Integer>> adjacent = new LinearList<>();
+    SweepQueue<Integer> queue = new SweepQueue<>();
+    for (int i = 0; i < bounds.length; i++) {
+      adjacent.addLast(new LinearList<>());
+      queue.add(i, bounds[i].lx, bounds[i].ux, bounds[i].ly, bounds[i].uy);
+    }
+
+    SweepQueue.overlapping(queue, (a, b) -> {
+      adjacent.nth(a).addLast(b);
+      adjacent.nth(b).addLast(a);
+    });
+
+    int[][] result = new int[bounds.length][];
+    for (int i = 0; i < bounds.length; i++) {
+      result[i] = adjacent.nth(i).stream().mapToInt(Integer::intValue).toArray();
+    }
+    return result;
+  }
+
+  /**
+   * Determines whether an arc from {@code regions[idx]} belongs on the boundary of the combined region.  For a union,
+   * the arc must not be covered by any other region, and for an intersection it must be covered by all of them.  Where
+   * several regions share the same edge, only the one with the lowest index contributes it.
+   * <p>
+   * Only the {@code neighbors} of {@code regions[idx]} are considered, since no other region can cover any part of it,
+   * and of those only the regions whose expanded {@code bounds} contain the arc's midpoint are classified.
+   */
+  private static boolean include(Region2[] regions, Box2[] bounds, int[] neighbors, int idx, Arc arc, Operation operation) {
+    Vec2 p = arc.position(0.5);
+    for (int i : neighbors) {
+      Type t = bounds[i].contains(p)
+        ? classify(regions[i], arc)
+        : Type.OUTSIDE;
+
+      boolean keep;
+      if (t == Type.SAME_EDGE) {
+        keep = idx < i;
+      } else if (operation == Operation.UNION) {
+        keep = t == Type.OUTSIDE;
+      } else {
+        keep = t == Type.INSIDE;
+      }
+
+      if (!keep) {
+        return false;
+      }
+    }
+
+    return true;
+  }
+
   public static Region2 difference(Region2 a, Region2 b) {
     return operation(a, b,
       Operation.DIFFERENCE,
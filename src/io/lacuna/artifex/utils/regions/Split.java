@@ -10,7 +10,6 @@ import java.util.Arrays;
 
 import static io.lacuna.artifex.utils.Intersections.PARAMETRIC_EPSILON;
 import static io.lacuna.artifex.utils.Intersections.SPATIAL_EPSILON;
-import static java.lang.Math.max;
 
 public class Split {
 
@@ -65,60 +64,85 @@ public class Split {
 
   public static class Result {
     public final Region2 a, b;
+    public final Region2[] regions;
     public final ISet<Vec2> splits;
 
     public Result(Region2 a, Region2 b, ISet<Vec2> splits) {
-      this.a = a;
-      this.b = b;
+      this(new Region2[]{a, b}, splits);
+    }
+
+    public Result(Region2[] regions, ISet<Vec2> splits) {
+      this.regions = regions;
+      this.a = regions.length > 0 ? regions[0] : null;
+      this.b = regions.length > 1 ? regions[1] : null;
       this.splits = splits;
     }
   }
 
-  public static Result split(Region2 a, Region2 b) {
+  private static class Entry {
+    final int region;
+    final Curve2 curve;
 
-    SweepQueue<Curve2>[] queues = new SweepQueue[]{new SweepQueue(), new SweepQueue()};
+    Entry(int region, Curve2 curve) {
+      this.region = region;
+      this.curve = curve;
+    }
+  }
 
-    add(a, queues[0]);
-    add(b, queues[1]);
+  public static Result split(Region2 a, Region2 b) {
+    return split(new Region2[]{a, b});
+  }
 
-    VertexUnion union = new VertexUnion();
-    IMap<Curve2, DoubleAccumulator> intersections = new LinearMap<>();
+  /**
+   * Splits every region at the points where its curves intersect the curves of any other region.  Curves within the
+   * same region are assumed not to intersect each other.
+   */
+  public static Result split(Region2[] regions) {
 
-    Curve2[] cs = new Curve2[2];
-    for (; ; ) {
-      int idx = SweepQueue.next(queues);
-      cs[idx] = queues[idx].take();
+    // since the same curve may appear in more than one region, each entry in the queue is tagged with its region
+    SweepQueue<Entry> queue = new SweepQueue<>();
+    IMap<Curve2, DoubleAccumulator> intersections = new LinearMap<>();
 
-      if (cs[idx] == null) {
-        break;
+    for (int i = 0; i < regions.length; i++) {
+      for (Ring2 r : regions[i].rings) {
+        for (Curve2 c : r.curves) {
+          Box2 b = c.bounds();
+          queue.add(new Entry(i, c), c.start().x, c.end().x, b.ly - SPATIAL_EPSILON, b.uy + SPATIAL_EPSILON);
+          intersections.put(c, new DoubleAccumulator());
+        }
       }
+    }
 
-      intersections.put(cs[idx], new DoubleAccumulator());
+    VertexUnion union = new VertexUnion();
+    SweepQueue.overlapping(queue, (x, y) -> {
+      if (x.region == y.region) {
+        return;
+      }
 
-      for (Curve2 c : queues[1 - idx].active()) {
-        cs[1 - idx] = c;
-        Vec2[] ts = cs[0].intersections(cs[1]);
+      // always intersect in region order, so that the result doesn't depend on the order of the sweep
+      Curve2 ca = x.region < y.region ? x.curve : y.curve;
+      Curve2 cb = x.region < y.region ? y.curve : x.curve;
 
-        for (int i = 0; i < ts.length; i++) {
-          //System.out.println(ts.length + " " + ts[i] + " " + cs[0].position(ts[i].x) + " " + cs[0].position(ts[i].x).sub(cs[1].position(ts[i].y)).length() + " " + ts[i].sub(ts[max(0, i - 1)]));
-          double t0 = ts[i].x;
-          double t1 = ts[i].y;
+      Vec2[] ts = ca.intersections(cb);
+      for (int i = 0; i < ts.length; i++) {
+        double t0 = ts[i].x;
+        double t1 = ts[i].y;
 
-          intersections.get(cs[0]).get().add(t0);
-          intersections.get(cs[1]).get().add(t1);
+        intersections.get(ca).get().add(t0);
+        intersections.get(cb).get().add(t1);
 
-          Vec2 p0 = cs[0].position(t0);
-          Vec2 p1 = cs[1].position(t1);
-          union.join(p0, p1);
-        }
+        Vec2 p0 = ca.position(t0);
+        Vec2 p1 = cb.position(t1);
+        union.join(p0, p1);
       }
-    }
+    });
 
     IMap<Curve2, DoubleAccumulator> deduped = intersections.mapValues((c, acc) -> dedupe(c, acc, union));
 
     return new Result(
-      split(a, deduped, union),
-      split(b, deduped, union),
+      Arrays.stream(regions)
+        .map(r -> split(r, deduped, union))
+        .toArray(Region2[]::new),
       union.roots());
   }
 
@@ -126,7 +150,8 @@ public class Split {
     return new Region2(
       Arrays.stream(region.rings)
         .map(ring -> split(ring, splits, union))
-        .toArray(Ring2[]::new));
+        .toArray(Ring2[]::new),
+      region.fillRule);
   }
 
   private static DoubleAccumulator dedupe(Curve2 c, DoubleAccumulator acc, VertexUnion union) {
@@ -166,10 +191,37 @@ public class Split {
     return new Ring2(curves);
   }
 
+  /**
+   * @return the points at which the curves of {@code region} intersect each other, other than the shared endpoints of
+   * adjacent curves
+   */
+  public static ISet<Vec2> intersections(Region2 region) {
+    SweepQueue<Curve2> queue = new SweepQueue<>();
+    add(region, queue);
+
+    ISet<Vec2> result = new LinearSet<>();
+    SweepQueue.overlapping(queue, (ca, cb) -> {
+      for (Vec2 t : ca.intersections(cb)) {
+        Vec2 p = ca.position(t.x);
+        boolean sharedEndpoint =
+          (t.x == 0 || t.x == 1)
+            && (t.y == 0 || t.y == 1)
+            && Vec.equals(p, cb.position(t.y), SPATIAL_EPSILON);
+
+        if (!sharedEndpoint) {
+          result.add(p);
+        }
+      }
+    });
+
+    return result;
+  }
+
   private static void add(Region2 region, SweepQueue<Curve2> queue) {
     for (Ring2 r : region.rings()) {
       for (Curve2 c : r.curves) {
-        queue.add(c, c.start().x, c.end().x);
+        Box2 b = c.bounds();
+        queue.add(c, c.start().x, c.end().x, b.ly - SPATIAL_EPSILON, b.uy + SPATIAL_EPSILON);
       }
     }
   }
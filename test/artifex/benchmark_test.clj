@@ -5,6 +5,7 @@
   (:import
    [io.lacuna.artifex
     Region2
+    Ring2
     Matrix3
     Vec2
     Vec3
@@ -31,3 +32,10 @@
                   (map #(.transform % (Matrix3/translate (rand) (rand)))))]
     (c/quick-bench
       (reduce #(.intersection ^Region2 %1 %2) regions))))
+
+#_(deftest ^:benchmark benchmark-n-ary-union
+  (let [regions (->> (cycle [(.region (Ring2/circle)) (.region (Ring2/square))])
+                  (take 1e3)
+                  (map #(.transform % (Matrix3/translate (* 10 (rand)) (* 10 (rand))))))]
+    (c/quick-bench
+      (Region2/union regions))))
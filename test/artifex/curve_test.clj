@@ -10,6 +10,7 @@
     Box
     Box2]
    [io.lacuna.artifex.utils
+    Flattener
     Scalars]))
 
 ;; Curve2.split
@@ -64,6 +65,46 @@
               d1 (-> c (.position t1) (.sub v) .length)]
           (is (< (Math/abs (- d0 d1)) 1e-2) [c t0 t1 (Math/abs (- d0 d1))]))))))
 
+;; Curve2.nearestPoint, with position and direction
+
+(deftest test-nearest-point-state
+  (doseq [c (concat
+              (repeatedly 1e2 #(random-curve 2 -1 1))
+              (repeatedly 1e2 #(random-curve 3 -1 1))
+              (repeatedly 1e2 #(random-curve 4 -1 1)))]
+    (let [^Vec2 v (random-vector -5 5)
+          out (double-array 4)
+          t (.nearestPoint ^Curve2 c (.x v) (.y v) out)
+          ^Vec2 p (.position ^Curve2 c (Scalars/clamp 0 t 1))
+          ^Vec2 d (.direction ^Curve2 c (Scalars/clamp 0 t 1))]
+      (is (= t (.nearestPoint ^Curve2 c v) (.nearestPoint ^Curve2 c (.x v) (.y v) nil)))
+      (is (= [(.x p) (.y p) (.x d) (.y d)] (vec out))))))
+
+;; batched evaluation
+
+(deftest test-batched-evaluation
+  (doseq [c (concat
+              (repeatedly 1e2 #(random-curve 2 -1 1))
+              (repeatedly 1e2 #(random-curve 3 -1 1))
+              (repeatedly 1e2 #(random-curve 4 -1 1)))]
+    (let [ts (double-array (map #(/ % 16.0) (range 17)))
+          xs (double-array 17)
+          ys (double-array 17)
+          px (double-array (repeatedly 17 #(- (rand 10) 5)))
+          py (double-array (repeatedly 17 #(- (rand 10) 5)))
+          ds (double-array 17)
+          vectors #(map (fn [x y] (Vec2. x y)) %1 %2)]
+      (.positions ^Curve2 c ts xs ys)
+      (is (every? true? (map #(Vec/equals %1 %2 Scalars/EPSILON) (map #(.position ^Curve2 c %) ts) (vectors xs ys))))
+      (.directions ^Curve2 c ts xs ys)
+      (is (every? true? (map #(Vec/equals %1 %2 Scalars/EPSILON) (map #(.direction ^Curve2 c %) ts) (vectors xs ys))))
+      (.distances ^Curve2 c px py ds)
+      (is (every? true?
+            (map (fn [^Vec2 p d]
+                   (let [^Vec2 n (.position ^Curve2 c (Scalars/clamp 0 (.nearestPoint ^Curve2 c p) 1))]
+                     (< (Math/abs (- d (.length (.sub p n)))) Scalars/EPSILON)))
+              (vectors px py) ds))))))
+
 ;; Curve2.subdivide
 
 (defn subdivision-error [^Curve2 c ^double error]
@@ -87,6 +128,31 @@
       (dotimes [_ 10]
         (is (>= error (subdivision-error (random-curve points -10 10) error)))))))
 
+;; Flattener
+
+(defn segment-distance [^Vec2 p ^Vec2 a ^Vec2 b]
+  (let [ab (.sub b a)
+        t  (Scalars/clamp 0 (/ (Vec/dot ab (.sub p a)) (.lengthSquared ab)) 1)]
+    (.length (.sub p (.add a (.mul ab t))))))
+
+(defn flattening-error [^Curve2 c ^double error]
+  (let [f  (doto (Flattener. error) (.add (into-array Curve2 [c]) false))
+        vs (map #(Vec2. (.x f %) (.y f %)) (range (.vertices f)))]
+    (->> (range 1e2)
+      (map #(.position c (/ % 1e2)))
+      (map (fn [p]
+             (->> vs
+               (partition 2 1)
+               (map (fn [[a b]] (segment-distance p a b)))
+               (apply min))))
+      (apply max))))
+
+(deftest test-flattening
+  (doseq [points [2 3 4]]
+    (doseq [error (->> (range 4) (map #(Math/pow 10 (- %))))]
+      (dotimes [_ 10]
+        (is (>= (* error (+ 1 Scalars/EPSILON)) (flattening-error (random-curve points -10 10) error)))))))
+
 ;; Curve2.bounds
 
 (defn sampled-bounds [^Curve2 c n]
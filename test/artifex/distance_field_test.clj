@@ -0,0 +1,176 @@
+(ns artifex.distance-field-test
+  (:require
+   [artifex.test-utils :refer :all]
+   [clojure.test :refer :all])
+  (:import
+   [java.io
+    File]
+   [java.nio
+    ByteBuffer]
+   [java.util
+    Random]
+   [java.util.concurrent
+    ForkJoinPool]
+   [io.lacuna.artifex
+    Box
+    Curve2
+    DistanceField
+    DistanceField$Encoding
+    Line2
+    Matrix3
+    Region2
+    Ring2
+    Vec2
+    Vec3]))
+
+(defn field= [^DistanceField a ^DistanceField b]
+  (and
+    (= (.width a) (.width b))
+    (= (.height a) (.height b))
+    (= (.shapeBounds a) (.shapeBounds b))
+    (= (.fieldBounds a) (.fieldBounds b))
+    (= (.encoding a) (.encoding b))
+    (= (.range a) (.range b))
+    (= (.texels a) (.texels b))))
+
+(def fields
+  (for [i (range 4)]
+    (DistanceField/from
+      (.union (.region (Ring2/circle))
+        (.transform (.region (Ring2/square)) (Matrix3/translate (* 0.25 i) 0)))
+      (+ 4.0 i))))
+
+(def quantized
+  (for [f fields
+        e [DistanceField$Encoding/UNORM8 DistanceField$Encoding/UNORM16]]
+    (.quantize ^DistanceField f e (float 4))))
+
+(deftest test-quantization
+  (doseq [^DistanceField f fields
+          [e tolerance] [[DistanceField$Encoding/UNORM8 (/ 1.01 255)]
+                         [DistanceField$Encoding/UNORM16 (/ 1.01 65535)]]]
+    (let [q (.quantize f e (float 4))
+          a (float-array DistanceField/CHANNELS)
+          b (float-array DistanceField/CHANNELS)]
+      (is (every? true?
+            (for [x (range (.width f))
+                  y (range (.height f))]
+              (do
+                (.pixel f x y a)
+                (.pixel q x y b)
+                (every? #(<= (Math/abs (- (max -1.0 (min 1.0 (aget a %))) (aget b %))) tolerance)
+                  (range DistanceField/CHANNELS)))))))))
+
+(deftest test-accessors
+  (doseq [^DistanceField f fields]
+    (let [buf (.buffer f)
+          a (float-array DistanceField/CHANNELS)
+          d (double-array DistanceField/CHANNELS)
+          scale (float 4)]
+      (is (every? true?
+            (for [x (range (.width f))
+                  y (range (.height f))]
+              (let [^Vec3 p (.pixel f (int x) (int y) scale)
+                    idx (* (+ (* y (.width f)) x) DistanceField/CHANNELS)]
+                (.pixel f (int x) (int y) a)
+                (and
+                  (every? #(== (aget a %) (.get buf (int (+ idx %)))) (range DistanceField/CHANNELS))
+                  (every? #(== (.nth p %) (max 0.0 (min 1.0 (+ 0.5 (/ (aget a %) (/ scale 2))))))
+                    (range DistanceField/CHANNELS)))))))
+      (is (every? true?
+            (for [u (range 0 1.0 (/ 1.0 32))
+                  v (range 0 1.0 (/ 1.0 32))]
+              (let [^Vec3 p (.get f (double u) (double v))]
+                (.get f (double u) (double v) d)
+                (every? #(== (aget d %) (.nth p %)) (range DistanceField/CHANNELS)))))))
+    (is (thrown? IllegalStateException (.buffer (.quantize f DistanceField$Encoding/UNORM8 (float 4))))))
+
+  ;; the curves found through the grid give each texel center away from the edges the same sign as the region
+  (let [^Region2 r (.union (.region (Ring2/circle))
+                     (.transform (.region (Ring2/square)) (Matrix3/translate 0.5 0)))
+        f (DistanceField/from r 8.0)
+        w (.width f)
+        h (.height f)
+        a (float-array DistanceField/CHANNELS)]
+    (is (every? true?
+          (for [x (range w)
+                y (range h)
+                :let [_ (.pixel f (int x) (int y) a)
+                      m (DistanceField/median (aget a 0) (aget a 1) (aget a 2))]
+                :when (< 0.05 (Math/abs m))]
+            (= (pos? m)
+              (.contains r (.lerp (.fieldBounds f) (Vec2. (/ (+ x 0.5) (inc w)) (/ (+ y 0.5) (inc h)))))))))))
+
+(deftest test-serialization
+  (doseq [f (concat fields quantized)]
+    (let [buf (.encode f (ByteBuffer/allocate (.encodedSize f)))]
+      (is (zero? (.remaining buf)))
+      (is (field= f (DistanceField/decode (.flip buf))))))
+
+  (let [file (File/createTempFile "atlas" ".bin")]
+    (try
+      (DistanceField/save (.toPath file) (concat fields quantized))
+      (let [loaded (DistanceField/load (.toPath file))]
+        (is (= (+ (count fields) (count quantized)) (.size loaded)))
+        (is (every? true? (map field= (concat fields quantized) loaded))))
+      (finally
+        (.delete file)))))
+
+(defn- holes [dx]
+  (reduce #(.difference ^Region2 %1 %2)
+    (.region (.transform (Ring2/square) (Matrix3/scale 4.0)))
+    (for [i (range 3) j (range 3)]
+      (.region
+        (.transform (Ring2/circle)
+          (.mul (Matrix3/translate (+ 1.0 i (if (= [i j] [1 1]) dx 0)) (+ 1.0 j)) (Matrix3/scale 0.3)))))))
+
+(defn- triangle [[x y] [x' y'] [x'' y'']]
+  (.region
+    (Ring2/of
+      (into-array Curve2
+        [(Line2/line (Vec2. x y) (Vec2. x' y'))
+         (Line2/line (Vec2. x' y') (Vec2. x'' y''))
+         (Line2/line (Vec2. x'' y'') (Vec2. x y))]))))
+
+(defn- triangles
+  "A square with ten random triangles cut out of it, where the first is shifted right by `dx`."
+  [seed dx]
+  (let [rnd (Random. seed)
+        r #(.nextDouble rnd)]
+    (reduce #(.difference ^Region2 %1 %2)
+      (.region (.transform (Ring2/square) (.mul (Matrix3/translate -1 -1) (Matrix3/scale 7.0))))
+      (for [i (range 10)
+            :let [x (+ (* 4 (r)) (if (zero? i) dx 0))
+                  y (* 4 (r))]]
+        (triangle
+          [x y]
+          [(+ x 0.3 (r)) (+ y (* 0.2 (r)))]
+          [(+ x (* 0.5 (r))) (+ y 0.3 (r))])))))
+
+(deftest test-update
+  (let [prev (holes 0)
+        next (holes 0.1)
+        expected (DistanceField/from next 16.0)
+        f (DistanceField/from prev 16.0)]
+    (is (field= expected (.update f prev next)))
+    (is (field= expected (.update f next (Box/box (Vec2. 1.6 1.6) (Vec2. 2.5 2.5)))))
+    (is (identical? f (.update f prev prev))))
+
+  ;; sharp, closely packed corners give chains of clash fixes which reach well beyond the changed texels
+  (doseq [seed (range 60 70)]
+    (let [prev (triangles seed 0)
+          next (triangles seed 0.13)]
+      (is (field= (DistanceField/from next 6.0) (.update (DistanceField/from prev 6.0) prev next))))))
+
+(deftest test-parallel-generation
+  (let [pool (ForkJoinPool. 4)]
+    (try
+      (doseq [^Region2 r [(.union (.region (Ring2/circle))
+                            (.transform (.region (Ring2/square)) (Matrix3/translate 0.5 0)))
+                          (holes 0.1)]
+              frequency [4.0 16.0]]
+        (is (field=
+              (DistanceField/from r 4 frequency (Math/toRadians 3) nil)
+              (DistanceField/from r 4 frequency (Math/toRadians 3) pool))))
+      (finally
+        (.shutdown pool)))))
@@ -133,3 +133,48 @@
               (prn)
               (is (< (first (quantile ary 0.99999)) 1e-6) (pr-str (last ary)))
               (is (< (first (quantile ary 0.999)) 1e-8) (pr-str (last ary))))))))))
+
+(defn ray-reference
+  "The nearest intersection along a horizontal ray, via the general-purpose line/curve intersection."
+  [x y x-end ^Curve2 c]
+  (let [ss (->> (Intersections/lineCurve (Line2/line (v x y) (v x-end y)) c)
+             (map (fn [^Vec2 i]
+                    [(Intersections/round (.x i) Intersections/PARAMETRIC_EPSILON)
+                     (Intersections/round (.y i) Intersections/PARAMETRIC_EPSILON)]))
+             (filter (fn [[s t]] (and (<= 0 s 1) (<= 0 t 1))))
+             (map first))]
+    (if (empty? ss)
+      Double/NaN
+      (apply min ss))))
+
+(defn same-ray-result? [a b]
+  (if (Double/isNaN a)
+    (Double/isNaN b)
+    (Scalars/equals a b 1e-6)))
+
+(defn on-curve? [^Curve2 c x y]
+  (let [p (v x y)]
+    (< (.length (.sub (.position c (.nearestPoint c p)) p)) 1e-6)))
+
+(deftest test-ray-curve
+  (let [acc (double-array 3)]
+    (dotimes [_ 1e4]
+      (doseq [degree [2 3 4]]
+        (let [^Curve2 c (random-curve degree 0 1)
+              b (.bounds c)
+              x (- (rand) 0.5)
+              x-end 2]
+          ;; random rays must always agree
+          (let [y (rand)
+                expected (ray-reference x y x-end c)
+                actual (Intersections/rayCurve x y x-end c acc)]
+            (is (same-ray-result? expected actual) (pr-str c y expected actual)))
+
+          ;; rays through each endpoint, and tangent to the top and bottom of the curve, may find an intersection which
+          ;; the general-purpose path misses, but otherwise must agree
+          (doseq [y [(.y (.start c)) (.y (.end c)) (.ly b) (.uy b)]]
+            (let [expected (ray-reference x y x-end c)
+                  actual (Intersections/rayCurve x y x-end c acc)]
+              (if (Double/isNaN expected)
+                (is (or (Double/isNaN actual) (on-curve? c (+ x (* actual (- x-end x))) y)))
+                (is (same-ray-result? expected actual) (pr-str c y expected actual))))))))))
@@ -9,6 +9,7 @@
    [io.lacuna.artifex.utils
     Intersections
     Scalars
+    Vectors
     EdgeList
     Equations]
    [io.lacuna.artifex
@@ -24,6 +25,7 @@
     Vec2
     Vec3
     Vec4
+    Affine2
     Matrix3
     Matrix4]))
 
@@ -59,6 +61,22 @@
 
     ))
 
+(deftest test-vector-kernels
+  (dotimes [_ 1e3]
+    (let [[a b c] (repeatedly 3 #(random-vector -1 1))]
+      (is (= (Vec2/cross a b) (Vectors/cross (.x a) (.y a) (.x b) (.y b))))
+      (is (= (.lengthSquared a) (Vectors/lengthSquared (.x a) (.y a))))
+      (is (= (.length a) (Vectors/length (.x a) (.y a))))
+      (is (= (Intersections/signedDistance a b c)
+             (Vectors/signedDistance (.x a) (.y a) (.x b) (.y b) (.x c) (.y c))))))
+
+  (dotimes [_ 1e2]
+    (doseq [ps [(repeatedly 3 #(random-vector -1 1)) (repeatedly 4 #(random-vector -1 1))]
+            t [0 0.25 (rand) 1]]
+      (let [f (if (= 3 (count ps)) #(Vectors/quadratic %1 %2 %3 t) #(Vectors/cubic %1 %2 %3 %4 t))]
+        (is (= (.position (apply curve ps) t)
+               (v (apply f (map #(.x %) ps)) (apply f (map #(.y %) ps)))))))))
+
 ;; basic curves
 
 (deftest test-curves
@@ -88,6 +106,14 @@
 
       cubic  0.5 [1 0])
 
+    ;; signed area, which is negative since each curve heads clockwise around the area beneath it
+    (are [b area]
+        (and (Scalars/equals area (.signedArea b) Scalars/EPSILON)
+             (Scalars/equals (- area) (.signedArea (.reverse b)) Scalars/EPSILON))
+
+      quad   (/ -2 3)
+      cubic  -1.5)
+
     ))
 
 ;; Matrix3
@@ -103,3 +129,94 @@
 
     (Matrix4/translate 1 1 1) (Matrix4/scale 2.0) (v 1 1 1)
     (Matrix4/scale 2.0) (Matrix4/translate 1 1 1) (v 1 1 1)))
+
+(defn- approx= [^Vec2 a ^Vec2 b]
+  (Vectors/equals (.x a) (.y a) (.x b) (.y b) 1e-9))
+
+(deftest test-affine-transforms
+  (let [ms     [(Matrix3/scale 2.0)
+                (Matrix3/translate 1 1)
+                (Matrix3/rotate 1)
+                (.mul (Matrix3/translate 1 -2) (Matrix3/scale 3 -0.5))]
+        points (map #(v (* 4 (Math/sin %)) (* 3 (Math/cos (* 2 %)))) (range 20))]
+
+    (doseq [a ms]
+      (let [fa (.affine a)]
+        (is (= a (.matrix3 fa)))
+        (is (== (.determinant fa) (- (* (.get a 0 0) (.get a 1 1)) (* (.get a 0 1) (.get a 1 0)))))
+        (doseq [p points]
+          (is (= (.transform a p) (.transform fa p)))
+          (is (approx= p (.transform (.inverse fa) (.transform fa p)))))
+
+        (let [coords (double-array (mapcat #(vector (.x %) (.y %)) points))
+              xs     (double-array (map #(.x %) points))
+              ys     (double-array (map #(.y %) points))
+              n      (count points)]
+          (.transform fa coords 0 n)
+          (.transform fa xs ys 0 n)
+          (is (= (map #(.transform fa %) points)
+                 (map #(v (aget coords (* 2 %)) (aget coords (inc (* 2 %)))) (range n))
+                 (map #(v (aget xs %) (aget ys %)) (range n)))))
+
+        (doseq [b ms]
+          (let [fb (.affine b)]
+            (doseq [p points]
+              (is (approx= (.transform (.mul b a) p) (.transform (.mul fb fa) p))))))))
+
+    (is (thrown? IllegalStateException (.inverse (Affine2/scale 0 1))))))
+
+(defn- matrix= [a b]
+  (every? #(< (Math/abs (double %)) 1e-9)
+    (map - (iterator-seq (.rowMajor a)) (iterator-seq (.rowMajor b)))))
+
+(deftest test-matrix-inverse
+  (doseq [m [(Matrix3/scale 2 3)
+             (Matrix3/mul (into-array [(Matrix3/translate 1 -2) (Matrix3/rotate 1) (Matrix3/shear 0.5 0)]))
+             (Matrix3/from (v 1 2 0) (v 0 1 3) (v 4 0 1))]]
+    (is (matrix= Matrix3/IDENTITY (.mul m (.inverse m))))
+    (is (matrix= Matrix3/IDENTITY (.mul (.inverse m) m)))
+    (is (Scalars/equals 1 (* (.determinant m) (.determinant (.inverse m))) 1e-9)))
+
+  (doseq [m [(Matrix4/scale 2 3 4)
+             (Matrix4/mul (into-array [(Matrix4/translate 1 -2 3) (Matrix4/rotateX 1) (Matrix4/rotateZ 2) (Matrix4/shear 0.5 0 1)]))
+             (Matrix4/from (v 1 2 0 1) (v 0 1 3 0) (v 4 0 1 2) (v 0 1 0 1))]]
+    (is (matrix= Matrix4/IDENTITY (.mul m (.inverse m))))
+    (is (matrix= Matrix4/IDENTITY (.mul (.inverse m) m)))
+    (is (Scalars/equals 1 (* (.determinant m) (.determinant (.inverse m))) 1e-9)))
+
+  (is (== 6 (.determinant (Matrix3/scale 2 3))))
+  (is (== 24 (.determinant (Matrix4/scale 2 3 4))))
+  (is (thrown? IllegalStateException (.inverse (Matrix3/scale 0 1))))
+  (is (thrown? IllegalStateException (.inverse (Matrix4/scale 1 0 1)))))
+
+(deftest test-matrix-decomposition
+  (let [d (.decompose (Matrix3/mul (into-array [(Matrix3/translate 1 -2) (Matrix3/rotate 1) (Matrix3/shear 0.5 0) (Matrix3/scale 2 -3)])))]
+    (is (= (v 1 -2) (.translation d)))
+    (is (Scalars/equals 1 (.rotation d) 1e-9))
+    (is (Scalars/equals 0.5 (.shear d) 1e-9))
+    (is (Vectors/equals 2 -3 (.x (.scale d)) (.y (.scale d)) 1e-9)))
+
+  (doseq [m [(Matrix3/scale -1 1)
+             (Matrix3/mul (into-array [(Matrix3/rotate 2) (Matrix3/shear 0 0.7) (Matrix3/scale 3 0.5)]))]]
+    (is (matrix= m (.matrix (.decompose m)))))
+
+  (doseq [m [(Matrix4/scale -1 2 3)
+             (Matrix4/mul (into-array [(Matrix4/translate 1 -2 3) (Matrix4/rotateX 1) (Matrix4/rotateY 2) (Matrix4/shear 0.5 -1 0.25) (Matrix4/scale 2 3 4)]))]]
+    (let [d (.decompose m)]
+      (is (matrix= m (.matrix d)))
+      (is (Scalars/equals 1 (.determinant (.rotation d)) 1e-9))))
+
+  ;; the rotation is proper for general matrices, and any reflection is carried by the sign of the z-scale
+  (doseq [^Matrix4 m (concat
+                       [(Matrix4/from (v 1 0 5) (v 2 1 6) (v 3 4 0))
+                        (Matrix4/from (v 1 0 5) (v 3 4 0) (v 2 1 6))]
+                       (repeatedly 200 #(let [r (fn [] (v (- (rand 10) 5) (- (rand 10) 5) (- (rand 10) 5)))]
+                                          (Matrix4/from (r) (r) (r)))))
+          :when (< 0.1 (Math/abs (.determinant m)))]
+    (let [d (.decompose m)]
+      (is (matrix= m (.matrix d)))
+      (is (Scalars/equals 1 (.determinant (.rotation d)) 1e-9))
+      (is (= (pos? (.determinant m)) (pos? (.z (.scale d)))))))
+
+  (is (thrown? IllegalStateException (.decompose (Matrix3/from (v 1 2 0) (v 0 1 3) (v 4 0 1)))))
+  (is (thrown? IllegalStateException (.decompose (Matrix4/scale 1 0 1)))))
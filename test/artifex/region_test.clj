@@ -6,6 +6,8 @@
    [clojure.test.check.properties :as prop]
    [clojure.test.check.clojure-test :as ct :refer (defspec)])
   (:import
+   [java.util.concurrent
+    ForkJoinPool]
    [io.lacuna.bifurcan
     LinearList
     List]
@@ -16,12 +18,16 @@
     EdgeList
     Intersections]
    [io.lacuna.artifex.utils.regions
+    Split
     Clip]
    [io.lacuna.artifex
+    FillRule
     Interval
     Bezier2
     Curve2
     Region2
+    Region2$Scratch
+    PackedRegion2
     Ring2
     Vec2
     Matrix3]))
@@ -133,6 +139,313 @@
 
 ;;;
 
+(deftest test-self-intersections
+  (let [bowtie (region [[(curve (v 0 0) (v 1 1))
+                         (curve (v 1 1) (v 1 0))
+                         (curve (v 1 0) (v 0 1))
+                         (curve (v 0 1) (v 0 0))]])]
+    (is (= [(v 0.5 0.5)] (seq (Split/intersections bowtie))))
+    (is (empty? (seq (Split/intersections (.region (Ring2/circle))))))))
+
+(defn assignments
+  "Every way of assigning each of `rows` rows to a distinct one of `cols` columns."
+  [rows cols]
+  (if (zero? rows)
+    [[]]
+    (for [a (assignments (dec rows) cols)
+          j (range cols)
+          :when (not (some #{j} a))]
+      (conj a j))))
+
+(defn matching-cost [costs matching]
+  (->> matching
+    (map-indexed (fn [i j] (if (neg? j) 0 (get-in costs [i j]))))
+    (reduce +)))
+
+(defn brute-force-matching-cost [costs]
+  (let [rows (count costs)
+        cols (count (first costs))]
+    (if (<= rows cols)
+      (->> (assignments rows cols)
+        (map #(matching-cost costs %))
+        (apply min))
+      (recur (apply mapv vector costs)))))
+
+(deftest test-minimum-cost-matching
+  (doseq [rows (range 1 6)
+          cols (range 1 6)
+          ;; small integer costs give many ties
+          cost [rand #(double (rand-int 3))]]
+    (dotimes [_ 20]
+      (let [costs (vec (repeatedly rows (fn [] (vec (repeatedly cols cost)))))
+            matching (vec (Combinatorics/minimumCostMatching (into-array (map double-array costs))))
+            assigned (remove neg? matching)]
+        (is (= rows (count matching)))
+        (is (= (min rows cols) (count assigned)))
+        (is (or (empty? assigned) (apply distinct? assigned)))
+        (is (< (Math/abs (- (brute-force-matching-cost costs) (matching-cost costs matching))) 1e-9)
+          (pr-str costs matching))))))
+
+(deftest test-n-ary-ops
+  (dotimes [_ 10]
+    (let [regions (->> (gen/sample (gen-shape :circle) 6)
+                    (concat (gen/sample (gen-shape :square) 6))
+                    (map parse))
+          union (Region2/union regions)
+          parallel-union (Region2/union regions (ForkJoinPool/commonPool))
+          intersection (Region2/intersection (take 2 regions))]
+      (doseq [[x y] (gen/sample (gen/tuple (gen-float 0 2) (gen-float 0 2)) 100)]
+        (let [p (Vec2. (+ x 0.01) (+ y 0.01))]
+          (is (= (boolean (some #(.contains ^Region2 % p) regions))
+                (.contains union p)
+                (.contains parallel-union p)))
+          (is (= (every? #(.contains ^Region2 % p) (take 2 regions))
+                (.contains intersection p))))))))
+
+(deftest test-n-ary-ops-overlapping
+  ;; three or more operands which all overlap, plus one disjoint operand, for each operation
+  (dotimes [_ 10]
+    (let [[a & rs :as regions] (->> (gen/sample (gen/tuple (gen-float 0 0.5) (gen-float 0 0.5)) 4)
+                                 (map (fn [[x y]] [:circle x y 1 1]))
+                                 (map parse))
+          disjoint (parse [:square 3 3 1 1])
+          union (Region2/union (concat regions [disjoint]))
+          intersection (Region2/intersection regions)
+          empty (Region2/intersection (concat regions [disjoint]))
+          difference (.difference ^Region2 a (Region2/union rs))]
+      (is (empty? (.rings empty)))
+      (is (.contains union (Vec2. 3.5 3.5)))
+      (doseq [[x y] (gen/sample (gen/tuple (gen-float 0 1.5) (gen-float 0 1.5)) 200)]
+        (let [p (Vec2. (+ x 0.01) (+ y 0.01))
+              in (map #(.contains ^Region2 % p) regions)]
+          (is (= (boolean (some true? in)) (.contains union p)))
+          (is (= (every? true? in) (.contains intersection p)))
+          (is (= (and (first in) (not-any? true? (rest in))) (.contains difference p))))))))
+
+(defn subdivide
+  "Splits every curve in the ring in half `n` times, which adds curves without changing the ring's shape."
+  [^Ring2 ring n]
+  (->> (range n)
+    (reduce (fn [cs _] (mapcat #(.split ^Curve2 % 0.5) cs)) (seq (.curves ring)))
+    Ring2.))
+
+(deftest test-bulk-contains
+  (let [^Region2 r (parse [:difference [:circle 0.5 0.5 1 1] [:square 0.2 0.2 0.5 0.5]])
+        points (gen/sample (gen/tuple (gen-float -1 2) (gen-float -1 2)) 1000)
+        xs (double-array (map first points))
+        ys (double-array (map second points))
+        out (.contains r xs ys (boolean-array (count points)))]
+    (doseq [[i [x y]] (map vector (range) points)]
+      (is (= (.contains r (Vec2. x y)) (aget out i))))
+
+    ;; a single scratch space can be reused across regions and batches of any size
+    (let [scratch (Region2$Scratch.)
+          star (.region (subdivide (Ring2/circle) 3))]
+      (doseq [^Region2 r' [r star r]
+              n [1000 10 500 1000]]
+        (let [out (.contains r' (double-array (take n xs)) (double-array (take n ys)) (boolean-array n) scratch)]
+          (is (= (map #(.contains r' (Vec2. %1 %2)) (take n xs) (take n ys)) (seq out))))))))
+
+(deftest test-indexed-scan
+  ;; rings with at least 16 curves are tested via their band index, and smaller rings are scanned linearly
+  (let [star (Ring2/of
+               (into-array Curve2
+                 (->> (range 10)
+                   (map (fn [i]
+                          (let [r (if (even? i) 1 0.4)
+                                theta (* i (/ Math/PI 5))]
+                            (Vec2. (* r (Math/cos theta)) (* r (Math/sin theta))))))
+                   (#(map vector % (concat (rest %) [(first %)])))
+                   (map (fn [[a b]] (Bezier2/curve a b))))))]
+    (doseq [[^Ring2 linear ^Ring2 indexed] [[(subdivide (Ring2/circle) 1) (subdivide (Ring2/circle) 2)]
+                                            [star (subdivide star 1)]]]
+      (is (< (count (.curves linear)) 16 (inc (count (.curves indexed)))))
+      (let [b (.bounds indexed)
+            n (count (.curves indexed))
+            ;; every boundary of every band count the index could choose
+            ys (distinct
+                 (for [bands (range 1 (inc n)), k (range (inc bands))]
+                   (+ (.ly b) (* k (/ (.height b) bands)))))
+            xs (map #(+ (.lx b) (* % (.width b))) (range -0.125 1.25 0.0625))
+            edges (for [^Curve2 c (.curves indexed), t [0 0.25 0.5 0.75]]
+                    (.position c t))]
+        (doseq [p (concat (for [x xs, y ys] (Vec2. x y)) edges)]
+          (let [a (.test linear p)
+                b (.test indexed p)]
+            (is (= (.inside a) (.inside b)))
+            (is (= (nil? (.curve a)) (nil? (.curve b))))
+            (is (= (.winding linear p) (.winding indexed p)))))))))
+
+(deftest test-fill-rules
+  (let [vs (->> (range 5)
+             (map #(+ (/ Math/PI 2) (* 4 Math/PI (/ % 5))))
+             (mapv #(v (Math/cos %) (Math/sin %))))
+        star (Ring2. (map #(curve (vs %) (vs (mod (inc %) 5))) (range 5)))
+        origin (v 0 0)]
+    (is (= 2 (.winding star origin)))
+    (is (= -2 (.winding (.reverse star) origin)))
+    (is (not (.contains (.region star) origin)))
+    (is (.contains (.fillRule (.region star) FillRule/NON_ZERO) origin)))
+
+  ;; parity is counted across all rings, not just the innermost one containing the point
+  (let [^Region2 overlap (Region2/of (into-array Ring2 [(Ring2/square) (.transform (Ring2/square) (Matrix3/translate 0.5 0.5))]))
+        non-zero (.fillRule overlap FillRule/NON_ZERO)
+        points [(v 0.25 0.25) (v 0.75 0.75) (v 1.25 1.25) (v 1.25 0.25)]]
+    (is (= [true false true false] (map #(.contains overlap %) points)))
+    (is (= [true true true false] (map #(.contains non-zero %) points)))
+    (is (= [true false true false] (seq (.contains overlap (double-array (map #(.x ^Vec2 %) points)) (double-array (map #(.y ^Vec2 %) points)) (boolean-array 4)))))
+    (is (= [true true true false] (seq (.contains non-zero (double-array (map #(.x ^Vec2 %) points)) (double-array (map #(.y ^Vec2 %) points)) (boolean-array 4)))))
+    (is (= [true false true false] (map #(.contains (PackedRegion2. overlap) ^Vec2 %) points)))
+
+    ;; a point on an edge reports the curve it lies on, under either rule
+    (doseq [^Region2 r [overlap non-zero]
+            ^Ring2 ring (.rings r)
+            ^Curve2 c (.curves ring)]
+      (let [result (.test r (.position c 0.25))]
+        (is (.inside result))
+        (is (= c (.curve result)))))
+
+    ;; boolean operations assume that rings don't overlap
+    (is (thrown? IllegalArgumentException (.union non-zero (.region (Ring2/circle)))))
+    (is (thrown? IllegalArgumentException (Region2/union [(.region (Ring2/circle)) non-zero])))))
+
+(defn coverage [^bytes mask]
+  (/ (reduce + (map #(bit-and % 0xff) mask)) 255.0))
+
+(deftest test-rasterize
+  (let [^Region2 r (parse [:difference [:circle 0.5 0.5 1 1] [:square 0.2 0.2 0.5 0.5]])
+        m (.mul (Matrix3/translate 32 32) (Matrix3/scale 16.0))
+        mask (.rasterize r m 64 64)]
+    (is (< (Math/abs (- (coverage mask) (* 16 16 (- Math/PI 0.25)))) 4))
+    (doseq [x (range 64) y (range 64)]
+      (let [c (bit-and (aget mask (+ (* y 64) x)) 0xff)
+            inside (.contains r (Vec2. (/ (- (+ x 0.5) 32) 16) (/ (- (+ y 0.5) 32) 16)))]
+        (when (= 255 c) (is inside))
+        (when (zero? c) (is (not inside))))))
+
+  (let [^Region2 overlap (Region2/of (into-array Ring2 [(Ring2/square) (.transform (Ring2/square) (Matrix3/translate 0.5 0.5))]))
+        m (Matrix3/scale 32.0)]
+    (is (== (* 32 32 1.5) (coverage (.rasterize overlap m 64 64))))
+    (is (== (* 32 32 1.75) (coverage (.rasterize (.fillRule overlap FillRule/NON_ZERO) m 64 64)))))
+
+  ;; for overlapping and self-intersecting rings, full and empty pixels agree with `contains` at their centres
+  (let [vs (->> (range 5)
+             (map #(+ (/ Math/PI 2) (* 4 Math/PI (/ % 5))))
+             (mapv #(v (Math/cos %) (Math/sin %))))
+        star (Ring2. (map #(curve (vs %) (vs (mod (inc %) 5))) (range 5)))
+        overlap (Region2/of (into-array Ring2 [(Ring2/square) (.transform (Ring2/square) (Matrix3/translate 0.5 0.5))]))
+        circles (Region2/of (into-array Ring2 [(Ring2/circle) (.reverse (.transform (Ring2/circle) (Matrix3/translate 0.5 0)))]))
+        m (.mul (Matrix3/translate 32 32) (Matrix3/scale 20.0))]
+    (doseq [^Region2 r [overlap circles (.region star)]
+            rule [FillRule/EVEN_ODD FillRule/NON_ZERO]]
+      (let [r (.fillRule r rule)
+            mask (.rasterize r m 64 64)]
+        (doseq [x (range 64) y (range 64)]
+          (let [c (bit-and (aget mask (+ (* y 64) x)) 0xff)
+                inside (.contains r (Vec2. (/ (- (+ x 0.5) 32) 20) (/ (- (+ y 0.5) 32) 20)))]
+            (when (= 255 c) (is inside))
+            (when (zero? c) (is (not inside)))))))))
+
+(defn signed-area [^Region2 r]
+  (reduce + (map #(if (.isClockwise ^Ring2 %) (- (.area ^Ring2 %)) (.area ^Ring2 %)) (.rings r))))
+
+(deftest test-packed-region
+  (let [vs (mapv
+             (fn [i]
+               (let [t (* i (/ Math/PI 20))
+                     radius (if (even? i) 1 0.5)]
+                 (v (* radius (Math/cos t)) (* radius (Math/sin t)))))
+             (range 40))
+        star (Ring2. (map #(curve (vs %) (vs (mod (inc %) 40))) (range 40)))
+        regions [(parse [:difference [:circle 0.5 0.5 1 1] [:square 0.2 0.2 0.5 0.5]])
+                 (.region star)
+                 (.fillRule (.region star) FillRule/NON_ZERO)]
+        points (gen/sample (gen/tuple (gen-float -1 2) (gen-float -1 2)) 1000)]
+    (doseq [^Region2 r regions]
+      (let [p (PackedRegion2. r)]
+        (is (= (.bounds r) (.bounds p)))
+        (is (== (signed-area r) (.area p)))
+        (let [scratch (double-array 3)]
+          (doseq [[x y] points]
+            (is (= (.contains r (Vec2. x y)) (.contains p x y) (.contains p x y scratch) (.contains (.region p) (Vec2. x y))))))
+        (doseq [m [(.mul (Matrix3/translate 1 2) (Matrix3/scale 2 -3)) (Matrix3/rotate 0.5)]]
+          (let [r' (.transform r m)
+                p' (.transform p m)]
+            (is (< (Math/abs (- (.area p') (signed-area r'))) 1e-9))
+            (doseq [[x y] points]
+              (let [q (.transform (Vec2. x y) m)]
+                (is (= (.contains r' q) (.contains p' (.x q) (.y q))))))))))))
+
+(deftest test-transform
+  (let [r (parse [:difference [:circle 0.5 0.5 1 1] [:square 0.2 0.2 0.5 0.5]])
+        points (gen/sample (gen/tuple (gen-float -1 2) (gen-float -1 2)) 1000)]
+    (doseq [m [(Matrix3/scale 2 -3) (Matrix3/rotate 0.5) (.mul (Matrix3/translate 1 2) (Matrix3/rotate 2))]]
+      (let [r' (.transform r m)
+            det (- (* (.get m 0 0) (.get m 1 1)) (* (.get m 0 1) (.get m 1 0)))]
+        (doseq [[^Ring2 a ^Ring2 b] (map vector (.rings r) (.rings r'))]
+          (is (< (Math/abs (- (* (Math/abs det) (.area a)) (.area b))) 1e-9))
+          (is (= (pos? det) (= (.isClockwise a) (.isClockwise b))))
+          (is (< (Math/abs (- (.area b) (Math/abs (reduce + (map #(.signedArea ^Curve2 %) (.curves b)))))) 1e-9)))
+        ;; reflections reverse each ring's orientation, which doesn't affect parity
+        (doseq [[x y] points]
+          (is (= (.contains r (Vec2. x y)) (.contains r' (.transform (Vec2. x y) m)))))))))
+
+(deftest test-transformed-region
+  (let [r (parse [:difference [:circle 0.5 0.5 1 1] [:square 0.2 0.2 0.5 0.5]])
+        points (gen/sample (gen/tuple (gen-float -4 4) (gen-float -4 4)) 1000)
+        xs (double-array (map first points))
+        ys (double-array (map second points))]
+    (doseq [m [(Matrix3/scale 2 3) (.mul (Matrix3/translate 1 2) (Matrix3/rotate 2))]]
+      (let [t (.transformed r m)
+            r' (.region t)
+            out (.contains t xs ys (boolean-array (count points)))
+            scratch (Region2$Scratch.)]
+        (is (every? #(.contains (.expand (.bounds t) 1e-9) %) (.vertices (.bounds r'))))
+        (doseq [[i [x y]] (map-indexed vector points)]
+          (is (= (.contains r' (Vec2. x y)) (.contains t (Vec2. x y)) (aget out i))))
+        (doseq [n [1000 10]]
+          (is (= (take n (seq out))
+                (seq (.contains t (double-array (take n xs)) (double-array (take n ys)) (boolean-array n) scratch)))))))))
+
+(deftest test-degenerate-ops
+  (let [square (.region (Ring2/square))
+        circle (.region (Ring2/circle))
+        area #(Math/abs (double (signed-area %)))
+        close? #(< (Math/abs (- %1 %2)) 1e-6)
+        check (fn [^Region2 r expected-area f]
+                (is (close? expected-area (area r)))
+                (doseq [[x y] (gen/sample (gen/tuple (gen-float -2 3) (gen-float -2 3)) 200)]
+                  (let [p (Vec2. (+ x 0.013) (+ y 0.017))]
+                    (is (= (boolean (f p)) (.contains r p))))))
+        contains? #(.contains ^Region2 %1 ^Vec2 %2)]
+
+    ;; coincident edges
+    (let [right (.transform square (Matrix3/translate 1 0))
+          shifted (.transform square (Matrix3/translate 0.5 0))]
+      (check (.union square right) 2 #(or (contains? square %) (contains? right %)))
+      (check (.union square shifted) 1.5 #(or (contains? square %) (contains? shifted %)))
+      (check (.intersection square shifted) 0.5 #(and (contains? square %) (contains? shifted %)))
+      (check (.difference square shifted) 0.5 #(and (contains? square %) (not (contains? shifted %))))
+      (check (.intersection square square) 1 #(contains? square %))
+      (check (.union square square) 1 #(contains? square %))
+      (is (empty? (.rings (.difference square square)))))
+
+    ;; tangent edges, which meet at a single point, or leave a shared vertex in the same direction
+    (let [outside (.transform circle (Matrix3/translate 2 0))
+          inside (.transform circle (.mul (Matrix3/translate 0.5 0) (Matrix3/scale 0.5)))
+          a (area circle)
+          b (area inside)]
+      (check (.union circle outside) (* 2 a) #(or (contains? circle %) (contains? outside %)))
+      (check (.union circle inside) a #(contains? circle %))
+      (check (.intersection circle inside) b #(contains? inside %))
+      (check (.difference circle inside) (- a b) #(and (contains? circle %) (not (contains? inside %))))
+      (check (Region2/union [circle inside outside]) (* 2 a) #(or (contains? circle %) (contains? outside %)))
+
+      ;; the outer edge of the crescent and the tiny circle leave their shared vertex in the same direction
+      (let [crescent (.difference circle inside)
+            tiny (.transform circle (.mul (Matrix3/translate 0.75 0) (Matrix3/scale 0.25)))]
+        (check (.union crescent tiny) (+ (- a b) (area tiny)) #(or (contains? crescent %) (contains? tiny %)))))))
+
 (defspec test-region-ops 1e4
   (let [n (atom 0)]
     (prop/for-all [descriptor (->> (gen-compound-shape 4)